@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import com.sun.management.ThreadMXBean;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Runs a single operation over and over and reports the average time and
+ * the bytes allocated per call, in the spirit of JMH but without the
+ * dependency: a few warmup iterations to let the JIT compile the code, then
+ * measured iterations of a fixed duration, and every result is stored in a
+ * volatile field so the JIT can't throw the work away. Only allocations made
+ * by the benchmark thread are counted.
+ *
+ * Results are printed, and also appended to a CSV file if bench.out is set,
+ * one line per benchmark with the bench.label property (usually the commit),
+ * so runs on different commits can be compared. Iterations can be changed
+ * with bench.warmup, bench.iterations and bench.time (milliseconds per
+ * iteration).
+ */
+final class Bench {
+
+    private static final int WARMUP = Integer.getInteger("bench.warmup", 3), ITERATIONS = Integer.getInteger("bench.iterations", 5);
+    private static final long ITERATION_MS = Long.getLong("bench.time", 1000L);
+    private static final String OUT = System.getProperty("bench.out", ""), LABEL = System.getProperty("bench.label", "");
+
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    static volatile Object sink;
+
+    interface Op {
+
+        /**
+         * @return anything computed by the operation, so that it's not
+         * optimized away
+         */
+        Object run() throws Exception;
+    }
+
+    private Bench() {
+    }
+
+    /**
+     * prints the column headers
+     */
+    static void header() {
+        System.out.println(String.format(Locale.ROOT, "%-28s %-28s %14s %12s %14s", "benchmark", "params", "us/op", "error", "B/op"));
+    }
+
+    /**
+     * measures an operation and reports the average time per call
+     *
+     * @param benchmark name of the benchmark
+     * @param params parameters of this run, like "notes=200 chars=4000"
+     * @param op operation
+     */
+    static void run(String benchmark, String params, Op op) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            iteration(op);
+        }
+        double[] r = new double[ITERATIONS];
+        double mean = 0, bytes = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            double[] it = iteration(op);
+            r[i] = it[0];
+            mean += it[0];
+            bytes += it[1];
+        }
+        mean /= ITERATIONS;
+        bytes /= ITERATIONS;
+        double var = 0;
+        for (double x : r) {
+            var += (x - mean) * (x - mean);
+        }
+        double sd = ITERATIONS > 1 ? Math.sqrt(var / (ITERATIONS - 1)) : 0;
+        System.out.println(String.format(Locale.ROOT, "%-28s %-28s %14.3f %12.3f %14.0f", benchmark, params, mean / 1000, sd / 1000, bytes));
+        if (!OUT.isEmpty()) {
+            append(String.format(Locale.ROOT, "%s,%s,%s,%.3f,%.3f,%.0f", LABEL, benchmark, params, mean / 1000, sd / 1000, bytes));
+        }
+    }
+
+    /**
+     * @return average nanoseconds and bytes allocated per call during one
+     * iteration, at least one call is always made
+     */
+    private static double[] iteration(Op op) throws Exception {
+        long a0 = THREADS.getCurrentThreadAllocatedBytes();
+        long ops = 0, t0 = System.nanoTime(), end = t0 + ITERATION_MS * 1000000L, t;
+        do {
+            sink = op.run();
+            ops++;
+            t = System.nanoTime();
+        } while (t < end);
+        long allocated = THREADS.getCurrentThreadAllocatedBytes() - a0;
+        return new double[]{(double) (t - t0) / ops, (double) allocated / ops};
+    }
+
+    private static void append(String line) throws IOException {
+        File f = new File(OUT);
+        boolean header = !f.exists();
+        try (PrintWriter w = new PrintWriter(new OutputStreamWriter(new FileOutputStream(f, true), StandardCharsets.UTF_8))) {
+            if (header) {
+                w.println("label,benchmark,params,us_per_op,error,bytes_per_op");
+            }
+            w.println(line);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import javax.swing.SwingUtilities;
+
+/**
+ * Compares painting the custom color picker with the old per-pixel loop
+ * against the cached raster, at the size the menu uses on this screen.
+ *
+ * Needs a display (Main.SCALE is read from the screen). Arguments: number of
+ * paints (default 200).
+ */
+public class ColorPickerPaintBenchmark {
+
+    private static final float BASE_SATURATION = 0.7f; //same as CustomColorSelector
+
+    public static void main(String[] args) throws Exception {
+        final int paints = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        SwingUtilities.invokeAndWait(() -> {
+            CustomColorSelector sel = new CustomColorSelector() {
+                @Override
+                public void onColorSelected(Color c) {
+                }
+            };
+            sel.setSize(sel.getPreferredSize());
+            int w = sel.getWidth(), h = sel.getHeight();
+            BufferedImage target = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = target.createGraphics();
+
+            for (int i = 0; i < 20; i++) { //warmup
+                legacyPaint(g, w, h);
+                sel.paint(g);
+            }
+
+            long t = System.nanoTime();
+            for (int i = 0; i < paints; i++) {
+                legacyPaint(g, w, h);
+            }
+            long legacy = System.nanoTime() - t;
+
+            t = System.nanoTime();
+            CustomColorSelector.renderPicker(w, h);
+            long render = System.nanoTime() - t;
+
+            t = System.nanoTime();
+            for (int i = 0; i < paints; i++) {
+                sel.paint(g);
+            }
+            long cached = System.nanoTime() - t;
+            g.dispose();
+
+            System.out.println("picker size: " + w + "x" + h + " (scale " + Main.SCALE + "), paints: " + paints);
+            System.out.println("per-pixel paint, average:  " + legacy / paints / 1000 + " us");
+            System.out.println("raster render (on resize): " + render / 1000 + " us");
+            System.out.println("cached paint, average:     " + cached / paints / 1000 + " us");
+        });
+        System.exit(0);
+    }
+
+    /**
+     * the gradient as CustomColorSelector painted it before it was cached
+     */
+    private static void legacyPaint(Graphics2D g2, int w, int h) {
+        int padding = (int) (4 * Main.SCALE), grayscaleHeight = (int) (12 * Main.SCALE);
+        float width = w - padding * 2;
+        float height = h - grayscaleHeight - padding * 3;
+        for (float y = 0; y < height; y++) {
+            for (float x = 0; x < width; x++) {
+                float fx = x / width, fy = y / height;
+                g2.setColor(Color.getHSBColor(fx,
+                        fy < 0.5f ? (BASE_SATURATION - BASE_SATURATION * 2 * (0.5f - fy)) : BASE_SATURATION,
+                        fy < 0.5f ? 1f : (1 - (2 * (fy - 0.5f)))));
+                g2.fillRect((int) (x + padding), (int) (y + padding), 1, 1);
+            }
+        }
+        for (float x = 0; x < width; x++) {
+            g2.setColor(Color.getHSBColor(0, 0, x / width));
+            g2.fillRect((int) (x + padding), (int) (height + padding * 2), 1, grayscaleHeight);
+        }
+    }
+}
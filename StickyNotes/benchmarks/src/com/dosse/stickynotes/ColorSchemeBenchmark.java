@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.awt.Color;
+import java.util.Random;
+
+/**
+ * Measures the derivation of a full color scheme from the color picked in
+ * the custom color selector (Note.createCustomScheme), on a mix of dark,
+ * bright and unsaturated colors.
+ *
+ * No display needed. See Bench for the options.
+ */
+public class ColorSchemeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Random r = new Random(42);
+        final Color[] colors = new Color[4096];
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = i % 8 == 0 ? new Color(Color.HSBtoRGB(r.nextFloat(), 0, r.nextFloat())) : new Color(r.nextInt(0x1000000));
+        }
+        final int[] i = {0};
+        Bench.header();
+        Bench.run("custom-scheme", "colors=" + colors.length, () -> Note.createCustomScheme(colors[i[0]++ & (colors.length - 1)]));
+        System.exit(0);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultStyledDocument;
+import javax.swing.text.MutableAttributeSet;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyledDocument;
+
+/**
+ * Measures the document side of a note: building a StyledDocument from plain
+ * text and from formatted text (a bold or italic word every few words), and
+ * applying a character attribute to the whole text like the format menu
+ * does on a selection.
+ *
+ * No display needed. Arguments: document sizes in characters (default
+ * 4000,64000,1000000). See Bench for the options.
+ */
+public class DocumentBenchmark {
+
+    private static final SimpleAttributeSet PLAIN = new SimpleAttributeSet(), BOLD = new SimpleAttributeSet(), ITALIC = new SimpleAttributeSet();
+
+    static {
+        StyleConstants.setBold(BOLD, true);
+        StyleConstants.setItalic(ITALIC, true);
+    }
+
+    public static void main(String[] args) throws Exception {
+        String[] sizes = (args.length > 0 ? args[0] : "4000,64000,1000000").split(",");
+        Bench.header();
+        for (String size : sizes) {
+            final int length = Integer.parseInt(size.trim());
+            final String text = NoteMemoryBenchmark.randomText(length, 42);
+            final String[] words = text.split("(?<= )");
+            String params = "chars=" + length;
+            Bench.run("document-plain", params, () -> plain(text));
+            Bench.run("document-formatted", params, () -> formatted(words));
+            final StyledDocument plainDoc = plain(text), formattedDoc = formatted(words);
+            final boolean[] bold = {false};
+            Bench.run("format-selection-plain", params, () -> toggleBold(plainDoc, bold));
+            Bench.run("format-selection-formatted", params, () -> toggleBold(formattedDoc, bold));
+        }
+        System.exit(0);
+    }
+
+    private static StyledDocument plain(String text) throws BadLocationException {
+        DefaultStyledDocument d = new DefaultStyledDocument();
+        d.insertString(0, text, null);
+        return d;
+    }
+
+    /**
+     * one run per word, every 7th word is bold and every 11th is italic
+     */
+    private static StyledDocument formatted(String[] words) throws BadLocationException {
+        DefaultStyledDocument d = new DefaultStyledDocument();
+        int pos = 0;
+        for (int i = 0; i < words.length; i++) {
+            d.insertString(pos, words[i], i % 7 == 0 ? BOLD : i % 11 == 0 ? ITALIC : PLAIN);
+            pos += words[i].length();
+        }
+        return d;
+    }
+
+    /**
+     * same as FormatMenu.toggleBold with the whole text selected
+     */
+    private static StyledDocument toggleBold(StyledDocument d, boolean[] bold) {
+        bold[0] = !bold[0];
+        MutableAttributeSet attrs = new SimpleAttributeSet();
+        StyleConstants.setBold(attrs, bold[0]);
+        d.setCharacterAttributes(0, d.getLength(), attrs, false);
+        return d;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.awt.Component;
+import java.awt.Point;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.SwingUtilities;
+
+/**
+ * Drags a note by its header with synthetic mouse events, like a mouse with a
+ * high polling rate, and counts how many times the window is actually moved.
+ *
+ * Needs a display. Arguments: events per second (default 1000), duration in
+ * seconds (default 3).
+ */
+public class DragBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final int rate = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        final int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        final AtomicInteger moves = new AtomicInteger();
+        final Note[] note = new Note[1];
+        final Component[] header = new Component[1];
+        final Point start = new Point(), startOnScreen = new Point();
+        SwingUtilities.invokeAndWait(() -> {
+            note[0] = new Note() {
+                @Override
+                public void setBounds(int x, int y, int width, int height) {
+                    moves.incrementAndGet();
+                    super.setBounds(x, y, width, height);
+                }
+            };
+            note[0].setLocation(100, 100);
+            note[0].setVisible(true);
+            start.setLocation(note[0].getWidth() / 3, (int) (6 * Main.SCALE));
+            header[0] = SwingUtilities.getDeepestComponentAt(note[0].getContentPane(), start.x, start.y);
+            Point p = SwingUtilities.convertPoint(note[0].getContentPane(), start, header[0]);
+            start.setLocation(p);
+            startOnScreen.setLocation(p);
+            SwingUtilities.convertPointToScreen(startOnScreen, header[0]);
+            header[0].dispatchEvent(event(header[0], MouseEvent.MOUSE_PRESSED, start, startOnScreen, 0));
+        });
+        moves.set(0);
+        long period = 1000000000L / rate, t0 = System.nanoTime();
+        int events = rate * seconds;
+        for (int i = 0; i < events; i++) {
+            final int dx = (int) (200 * Math.sin(i * 2 * Math.PI / rate));
+            SwingUtilities.invokeLater(() -> header[0].dispatchEvent(event(header[0], MouseEvent.MOUSE_DRAGGED, start, startOnScreen, dx)));
+            long next = t0 + (i + 1) * period;
+            while (System.nanoTime() < next) {
+                Thread.onSpinWait();
+            }
+        }
+        SwingUtilities.invokeAndWait(() -> header[0].dispatchEvent(event(header[0], MouseEvent.MOUSE_RELEASED, start, startOnScreen, 0)));
+        long elapsed = System.nanoTime() - t0;
+
+        System.out.println("drag events: " + events + " in " + elapsed / 1000000 + " ms");
+        System.out.println("window moves: " + moves.get() + " (" + moves.get() * 1000000000L / elapsed + " per second)");
+        System.exit(0);
+    }
+
+    /**
+     * a mouse event moved horizontally by dx from where the drag started. The
+     * note follows the cursor, so the local coordinates stay the same and only
+     * the screen coordinates change, which is what the note uses.
+     */
+    private static MouseEvent event(Component c, int id, Point local, Point onScreen, int dx) {
+        return new MouseEvent(c, id, System.currentTimeMillis(), InputEvent.BUTTON1_DOWN_MASK, local.x, local.y, onScreen.x + dx, onScreen.y, 1, false, MouseEvent.BUTTON1);
+    }
+}
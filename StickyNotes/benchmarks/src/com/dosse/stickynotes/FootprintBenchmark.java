@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.awt.Component;
+import java.awt.Container;
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import javax.swing.JTextPane;
+import javax.swing.SwingUtilities;
+
+/**
+ * Measures the memory used by the app with 100 notes on the desktop, before
+ * and after it's trimmed for being idle (see Footprint), and checks that
+ * there are no full GCs while typing.
+ *
+ * The app is started like Main.main does, in a new JVM with the heap settings
+ * of the launcher and a temporary storage folder generated with
+ * StoreGenerator. Then text is typed in one note at a steady pace, while the
+ * GCs are watched, and finally the memory is trimmed as if the app had been
+ * idle.
+ *
+ * Needs a display. Takes the same key=value arguments as StoreGenerator
+ * (default: 100 notes, all on the desktop, no giant notes), plus:
+ * <ul>
+ * <li>typed: characters typed (default 300)</li>
+ * <li>cps: characters per second (default 30)</li>
+ * </ul>
+ *
+ * The resident set size is read from /proc, so it's only shown on Linux.
+ * Exits with 1 if there was a full GC while typing.
+ */
+public class FootprintBenchmark {
+
+    /**
+     * same as the launch4j configuration and run.jvmargs. There's no maximum
+     * heap, the serial GC and the free ratios keep the committed heap small
+     */
+    private static final String[] LAUNCHER_JVM_ARGS = {"-Xms2m", "-XX:+UseSerialGC", "-XX:MinHeapFreeRatio=10", "-XX:MaxHeapFreeRatio=30"};
+
+    private static int minorGcs = 0, majorGcs = 0;
+    private static long maxGcPause = 0;
+    private static volatile boolean watching = false;
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("notebot.home") == null) {
+            System.exit(ScaleHarness.fork(FootprintBenchmark.class, LAUNCHER_JVM_ARGS, args));
+        }
+        Map<String, String> p = StoreGenerator.parseArgs(args);
+        p.putIfAbsent("notes", "100");
+        p.putIfAbsent("giants", "0");
+        p.putIfAbsent("stowed", "0");
+        int typed = StoreGenerator.intArg(p, "typed", 300), cps = StoreGenerator.intArg(p, "cps", 30);
+        StoreGenerator.write(new File(Main.getStorageDir(), "sticky.dat"), p);
+
+        Main.main(new String[]{"-autostartup"});
+        SwingUtilities.invokeAndWait(() -> {
+        });
+        Thread.sleep(2000); //let the windows settle
+        int notes = Main.getNotes().size();
+        String startRss = rss(), startHeap = heap();
+
+        watchGcs();
+        final JTextPane pane = find(Main.getNotes().get(notes - 1)); //the topmost one
+        final Random r = new Random(1);
+        long start = System.nanoTime();
+        watching = true;
+        for (int i = 0; i < typed; i++) {
+            final String c = r.nextInt(8) == 0 ? " " : String.valueOf((char) ('a' + r.nextInt(26)));
+            SwingUtilities.invokeAndWait(() -> pane.replaceSelection(c)); //what the key typed action does
+            long next = start + (i + 1) * 1000000000L / cps;
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+            }
+        }
+        watching = false;
+        String typingRss = rss(), typingHeap = heap();
+
+        Footprint.trim(0, false);
+        Thread.sleep(1000);
+        String idleRss = rss(), idleHeap = heap();
+
+        System.out.println(notes + " notes on the desktop, " + typed + " characters typed at " + cps + "/s");
+        System.out.println("                 RSS          heap used / committed");
+        System.out.println("after startup    " + startRss + "   " + startHeap);
+        System.out.println("after typing     " + typingRss + "   " + typingHeap);
+        System.out.println("idle, trimmed    " + idleRss + "   " + idleHeap);
+        System.out.println("GCs while typing: " + minorGcs + " minor (longest " + maxGcPause + " ms), " + majorGcs + " full");
+        System.exit(majorGcs == 0 ? 0 : 1);
+    }
+
+    /**
+     * @return the text pane of a note
+     */
+    private static JTextPane find(Container c) {
+        for (Component k : c.getComponents()) {
+            if (k instanceof JTextPane) {
+                return (JTextPane) k;
+            }
+            if (k instanceof Container) {
+                JTextPane t = find((Container) k);
+                if (t != null) {
+                    return t;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void watchGcs() {
+        NotificationListener l = (Notification n, Object handback) -> {
+            if (!watching || !GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(n.getType())) {
+                return;
+            }
+            GarbageCollectionNotificationInfo i = GarbageCollectionNotificationInfo.from((CompositeData) n.getUserData());
+            synchronized (FootprintBenchmark.class) {
+                if (i.getGcAction().contains("major")) {
+                    majorGcs++;
+                } else {
+                    minorGcs++;
+                }
+                maxGcPause = Math.max(maxGcPause, i.getGcInfo().getDuration());
+            }
+        };
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) gc).addNotificationListener(l, null, null);
+        }
+    }
+
+    /**
+     * @return resident set size of this process from /proc, or n/a
+     */
+    private static String rss() {
+        try {
+            for (String l : Files.readAllLines(new File("/proc/self/status").toPath(), StandardCharsets.UTF_8)) {
+                if (l.startsWith("VmRSS:")) {
+                    return String.format(Locale.ROOT, "%7.1f MiB", Long.parseLong(l.replaceAll("[^0-9]", "")) / 1024.0);
+                }
+            }
+        } catch (Exception e) {
+        }
+        return "      n/a";
+    }
+
+    private static String heap() {
+        MemoryUsage h = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        return String.format(Locale.ROOT, "%5.1f / %5.1f MiB", h.getUsed() / 1048576.0, h.getCommitted() / 1048576.0);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.util.ArrayList;
+import javax.swing.SwingUtilities;
+
+/**
+ * Measures how long it takes to construct notes and how much heap each one
+ * retains before it's shown, which is what startup pays for every saved note.
+ *
+ * Needs a display. Arguments: number of notes (default 500).
+ */
+public class NoteConstructionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final int count = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        final ArrayList<Note> notes = new ArrayList<>(count);
+
+        SwingUtilities.invokeAndWait(() -> new Note().dispose()); //load classes, fonts and L&F before the baseline
+        long base = NoteMemoryBenchmark.usedHeap();
+
+        final long[] elapsed = new long[1];
+        SwingUtilities.invokeAndWait(() -> {
+            long t = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                notes.add(new Note());
+            }
+            elapsed[0] = System.nanoTime() - t;
+        });
+        long used = NoteMemoryBenchmark.usedHeap();
+
+        System.out.println("notes: " + notes.size()); //also keeps the notes reachable until after the measurement
+        System.out.println("construction, total:       " + elapsed[0] / 1000000 + " ms");
+        System.out.println("construction, per note:    " + elapsed[0] / count / 1000 + " us");
+        System.out.println("retained heap per note:    " + (used - base) / count / 1024 + " KiB");
+        System.exit(0);
+    }
+}
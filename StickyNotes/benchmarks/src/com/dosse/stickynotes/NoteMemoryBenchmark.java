@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Random;
+import javax.swing.SwingUtilities;
+
+/**
+ * Measures the heap retained by each note when it's live (visible window,
+ * full document) and when it's hibernated, and how long rehydration takes.
+ *
+ * Needs a display. Arguments: number of notes (default 200), characters per
+ * note (default 4000).
+ */
+public class NoteMemoryBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final int count = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        final int length = args.length > 1 ? Integer.parseInt(args[1]) : 4000;
+        final String text = randomText(length, 42);
+        final ArrayList<Note> notes = new ArrayList<>();
+
+        SwingUtilities.invokeAndWait(() -> new Note().dispose()); //load classes, fonts and L&F before the baseline
+        long base = usedHeap();
+
+        SwingUtilities.invokeAndWait(() -> {
+            for (int i = 0; i < count; i++) {
+                Note n = new Note();
+                n.setText(text);
+                n.setLocation(20 + (i % 20) * 10, 20 + (i % 20) * 10);
+                n.setVisible(true);
+                notes.add(n);
+            }
+        });
+        long live = usedHeap();
+
+        SwingUtilities.invokeAndWait(() -> {
+            for (Note n : notes) {
+                n.hibernate();
+            }
+        });
+        long hibernated = usedHeap();
+
+        final long[] times = new long[count];
+        SwingUtilities.invokeAndWait(() -> {
+            for (int i = 0; i < count; i++) {
+                long t = System.nanoTime();
+                notes.get(i).setVisible(true);
+                times[i] = System.nanoTime() - t;
+            }
+        });
+        long sum = 0, max = 0;
+        for (long t : times) {
+            sum += t;
+            max = Math.max(max, t);
+        }
+
+        System.out.println("notes: " + count + ", characters per note: " + length);
+        System.out.println("retained heap per live note:       " + (live - base) / count / 1024 + " KiB");
+        System.out.println("retained heap per hibernated note: " + (hibernated - base) / count / 1024 + " KiB");
+        System.out.println("rehydrate + show, average:         " + sum / count / 1000 + " us");
+        System.out.println("rehydrate + show, max:             " + max / 1000 + " us");
+        System.exit(0);
+    }
+
+    /**
+     * @return heap in use after trying hard to collect garbage
+     */
+    static long usedHeap() throws InterruptedException {
+        long prev = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            Thread.sleep(50);
+            long used = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            if (used >= prev) {
+                return used;
+            }
+            prev = used;
+        }
+        return prev;
+    }
+
+    /**
+     * generates text that looks like a note: words of varying length, some
+     * #tags, line breaks
+     */
+    static String randomText(int length, long seed) {
+        Random r = new Random(seed);
+        StringBuilder sb = new StringBuilder(length + 16);
+        while (sb.length() < length) {
+            int w = 2 + r.nextInt(9);
+            if (r.nextInt(40) == 0) {
+                sb.append('#');
+            }
+            for (int i = 0; i < w; i++) {
+                sb.append((char) ('a' + r.nextInt(26)));
+            }
+            sb.append(r.nextInt(12) == 0 ? '\n' : ' ');
+        }
+        sb.setLength(length);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Random;
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.JScrollBar;
+
+/**
+ * Measures the custom painting of the notes and of the components in
+ * ModernUI, by painting them into an offscreen image without a display. Each
+ * frame paints the whole component, as after an expose or a color change.
+ *
+ * Main.SCALE can't change once it's set, so this runs itself again in a
+ * headless JVM for each scale (1x, 1.5x and 2x, set with the notebot.scale
+ * property). To run a single scale, set notebot.scale. See Bench for the
+ * options.
+ */
+public class PaintBenchmark {
+
+    private static final String[] SCALES = {"1", "1.5", "2"};
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("notebot.scale") == null) {
+            for (String scale : SCALES) {
+                fork(scale);
+            }
+            System.exit(0);
+        }
+        final String p = "scale=" + Main.SCALE;
+        Bench.header();
+
+        Random r = new Random(42);
+        Color[][] schemes = new Color[9][];
+        for (int i = 0; i < schemes.length; i++) {
+            schemes[i] = Note.createCustomScheme(new Color(r.nextInt(0x1000000)));
+        }
+        ColorSelector colors = new ColorSelector(schemes) {
+            @Override
+            public void onColorSchemeSelected(Color[] scheme) {
+            }
+        };
+        Bench.run("color-selector", p, painter(colors, colors.getPreferredSize()));
+
+        CustomColorSelector custom = new CustomColorSelector() {
+            @Override
+            public void onColorSelected(Color c) {
+            }
+        };
+        final Dimension customSize = custom.getPreferredSize();
+        Bench.run("custom-color-selector", p, painter(custom, customSize));
+        Bench.run("custom-color-render", p, () -> CustomColorSelector.renderPicker(customSize.width, customSize.height)); //what the first paint and every resize cost
+
+        //the note: body, header and buttons, sizes as in Note
+        final int size = (int) (280 * Main.SCALE), header = (int) (22 * Main.SCALE), radius = (int) (22 * Main.SCALE), button = (int) (20 * Main.SCALE);
+        final JPanel body = panel(size, size), head = panel(size, header), newButton = panel(button, button), deleteButton = panel(button, button);
+        newButton.setForeground(schemes[0][3]);
+        deleteButton.setForeground(schemes[0][3]);
+        final BufferedImage noteImage = image(size, size);
+        Bench.Op note = () -> {
+            Graphics2D g = noteImage.createGraphics();
+            NoteChrome.paintBody(body, g, schemes[0][0], radius);
+            NoteChrome.paintHeader(head, g, schemes[0][2], header, radius);
+            NoteChrome.paintNewButton(newButton, g, NoteChrome.IDLE);
+            NoteChrome.paintDeleteButton(deleteButton, g, NoteChrome.HOVER);
+            g.dispose();
+            return noteImage;
+        };
+        Bench.run("note-chrome", p, note);
+        Bench.run("note-chrome-uncached", p, () -> {
+            NoteChrome.clearCache(); //as if the size or the colors changed every frame
+            return note.run();
+        });
+
+        ModernUI.RoundedPanel rounded = new ModernUI.RoundedPanel(ModernUI.CORNER_RADIUS);
+        rounded.setBackground(schemes[1][0]);
+        rounded.setBorderColor(schemes[1][1]);
+        Bench.run("rounded-panel", p, painter(rounded, new Dimension(size, size)));
+
+        ModernUI.ModernButton modern = new ModernUI.ModernButton("OK");
+        modern.setFont(Main.BUTTON_FONT);
+        Bench.run("modern-button", p, painter(modern, new Dimension((int) (100 * Main.SCALE), (int) (32 * Main.SCALE))));
+        Dimension buttonSize = new Dimension(ModernUI.BUTTON_SIZE, ModernUI.BUTTON_SIZE);
+        Bench.run("close-button", p, painter(new ModernUI.CloseButton(), buttonSize));
+        Bench.run("add-button", p, painter(new ModernUI.AddButton(), buttonSize));
+
+        JScrollBar scrollBar = new JScrollBar(JScrollBar.VERTICAL, 300, 200, 0, 1000);
+        scrollBar.setUI(new ModernUI.ModernScrollBarUI(schemes[2][4]));
+        Bench.run("scrollbar", p, painter(scrollBar, new Dimension((int) (8 * Main.SCALE), size)));
+        System.exit(0);
+    }
+
+    /**
+     * runs this benchmark in a headless JVM with the given scale, passing on
+     * the Bench options
+     */
+    private static void fork(String scale) throws Exception {
+        ArrayList<String> cmd = new ArrayList<>();
+        cmd.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add("-Djava.awt.headless=true");
+        cmd.add("-Dnotebot.scale=" + scale);
+        for (String k : System.getProperties().stringPropertyNames()) {
+            if (k.startsWith("bench.")) {
+                cmd.add("-D" + k + "=" + System.getProperty(k));
+            }
+        }
+        cmd.add(PaintBenchmark.class.getName());
+        int exit = new ProcessBuilder(cmd).inheritIO().start().waitFor();
+        if (exit != 0) {
+            throw new IllegalStateException("scale " + scale + " failed with exit code " + exit);
+        }
+    }
+
+    private static JPanel panel(int w, int h) {
+        JPanel c = new JPanel();
+        c.setSize(w, h);
+        return c;
+    }
+
+    private static BufferedImage image(int w, int h) {
+        return new BufferedImage(Math.max(1, w), Math.max(1, h), BufferedImage.TYPE_INT_ARGB);
+    }
+
+    /**
+     * @return an operation that paints the whole component, children
+     * included, into an image of its size
+     */
+    private static Bench.Op painter(final JComponent c, Dimension size) {
+        c.setSize(size);
+        c.doLayout();
+        final BufferedImage img = image(size.width, size.height);
+        return () -> {
+            Graphics2D g = img.createGraphics();
+            c.paint(g);
+            g.dispose();
+            return img;
+        };
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Random;
+
+/**
+ * Measures encoding and decoding of the storage at several note counts and
+ * note sizes. The data is written and read in the same order and with the
+ * same types as Main.saveState and Main.attemptLoad, but from plain objects
+ * instead of note windows, so only the cost of the format is measured and no
+ * display is needed.
+ *
+ * Arguments: note counts (default 10,200,2000), characters per note (default
+ * 200,4000,64000). Combinations above 16M characters in total are skipped.
+ * See Bench for the options.
+ */
+public class PersistenceBenchmark {
+
+    private static final long MAX_TOTAL_CHARS = 16000000L;
+
+    /**
+     * the fields of a note that are saved
+     */
+    private static final class NoteData {
+
+        Point location;
+        Dimension size;
+        Color[] scheme;
+        String text;
+        float textScale;
+        String[] tokens;
+        boolean stowed;
+        long lastModified;
+        LinkedHashMap<String, Rectangle> layouts;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] counts = parse(args.length > 0 ? args[0] : "10,200,2000");
+        int[] lengths = parse(args.length > 1 ? args[1] : "200,4000,64000");
+        Bench.header();
+        for (int count : counts) {
+            for (int length : lengths) {
+                if ((long) count * length > MAX_TOTAL_CHARS) {
+                    continue;
+                }
+                final NoteData[] notes = generate(count, length);
+                final byte[] encoded = encode(notes);
+                String params = "notes=" + count + " chars=" + length;
+                Bench.run("encode", params, () -> encode(notes));
+                Bench.run("decode", params, () -> decode(encoded));
+                System.out.println(String.format("%-28s %-28s %14d bytes", "size", params, encoded.length));
+            }
+        }
+        System.exit(0);
+    }
+
+    private static int[] parse(String s) {
+        String[] p = s.split(",");
+        int[] r = new int[p.length];
+        for (int i = 0; i < p.length; i++) {
+            r[i] = Integer.parseInt(p[i].trim());
+        }
+        return r;
+    }
+
+    private static NoteData[] generate(int count, int length) {
+        Random r = new Random(42);
+        NoteData[] notes = new NoteData[count];
+        for (int i = 0; i < count; i++) {
+            NoteData n = new NoteData();
+            n.location = new Point(r.nextInt(1800), r.nextInt(1000));
+            n.size = new Dimension(280 + r.nextInt(200), 280 + r.nextInt(200));
+            n.scheme = new Color[8];
+            for (int j = 0; j < n.scheme.length; j++) {
+                n.scheme[j] = new Color(r.nextInt(0x1000000));
+            }
+            n.text = NoteMemoryBenchmark.randomText(length, i);
+            n.textScale = 1;
+            n.tokens = new String[]{"#todo", "[[note " + i + "]]"};
+            n.stowed = r.nextInt(4) == 0;
+            n.lastModified = System.currentTimeMillis() - r.nextInt(1000000);
+            n.layouts = new LinkedHashMap<>();
+            n.layouts.put("0,0,1920x1080;", new Rectangle(n.location, n.size));
+            notes[i] = n;
+        }
+        return notes;
+    }
+
+    /**
+     * same as Main.writeState
+     */
+    private static byte[] encode(NoteData[] notes) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos);
+        oos.writeObject(1f);
+        oos.writeObject(notes.length);
+        for (NoteData n : notes) {
+            oos.writeObject(n.location);
+            oos.writeObject(n.size);
+            oos.writeObject(n.scheme);
+            oos.writeObject(n.text);
+        }
+        for (NoteData n : notes) {
+            oos.writeObject(n.textScale);
+        }
+        for (NoteData n : notes) {
+            oos.writeObject(n.tokens);
+        }
+        for (NoteData n : notes) {
+            oos.writeObject(n.stowed);
+            oos.writeObject(n.lastModified);
+        }
+        for (NoteData n : notes) {
+            oos.writeObject(n.layouts);
+        }
+        oos.flush();
+        return bos.toByteArray();
+    }
+
+    /**
+     * same as Main.attemptLoad, without creating the windows
+     */
+    @SuppressWarnings("unchecked")
+    private static NoteData[] decode(byte[] data) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            ois.readObject(); //scale, the notes aren't resized here
+            int count = (Integer) (ois.readObject());
+            NoteData[] notes = new NoteData[count];
+            for (int i = 0; i < count; i++) {
+                NoteData n = new NoteData();
+                n.location = (Point) (ois.readObject());
+                n.size = (Dimension) (ois.readObject());
+                n.scheme = (Color[]) (ois.readObject());
+                n.text = (String) (ois.readObject());
+                notes[i] = n;
+            }
+            for (int i = 0; i < count; i++) {
+                notes[i].textScale = (Float) (ois.readObject());
+            }
+            for (int i = 0; i < count; i++) {
+                notes[i].tokens = (String[]) (ois.readObject());
+            }
+            for (int i = 0; i < count; i++) {
+                notes[i].stowed = (Boolean) (ois.readObject());
+                notes[i].lastModified = (Long) (ois.readObject());
+            }
+            for (int i = 0; i < count; i++) {
+                notes[i].layouts = (LinkedHashMap<String, Rectangle>) (ois.readObject());
+            }
+            return notes;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.awt.Point;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.SwingUtilities;
+
+/**
+ * Resizes a note holding a large document from its bottom right corner with
+ * synthetic mouse events, and reports how many times the window was resized
+ * and how far behind the cursor the EDT fell.
+ *
+ * Needs a display. Arguments: document size in characters (default
+ * 1000000), events per second (default 1000), duration in seconds (default
+ * 3).
+ */
+public class ResizeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final int length = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        final int rate = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        final int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        final AtomicInteger resizes = new AtomicInteger();
+        final Note[] note = new Note[1];
+        final Point corner = new Point(), cornerOnScreen = new Point();
+        SwingUtilities.invokeAndWait(() -> {
+            note[0] = new Note() {
+                @Override
+                public void setBounds(int x, int y, int width, int height) {
+                    resizes.incrementAndGet();
+                    super.setBounds(x, y, width, height);
+                }
+            };
+            note[0].setText(NoteMemoryBenchmark.randomText(length, 42));
+            note[0].setBounds(100, 100, (int) (300 * Main.SCALE), (int) (300 * Main.SCALE));
+            note[0].setVisible(true);
+            corner.setLocation(note[0].getWidth() - 2, note[0].getHeight() - 2);
+            cornerOnScreen.setLocation(corner);
+            SwingUtilities.convertPointToScreen(cornerOnScreen, note[0]);
+            note[0].dispatchEvent(event(note[0], MouseEvent.MOUSE_PRESSED, corner, cornerOnScreen, 0));
+        });
+        resizes.set(0);
+        long period = 1000000000L / rate, t0 = System.nanoTime();
+        int events = rate * seconds;
+        final long[] maxLag = new long[1];
+        for (int i = 0; i < events; i++) {
+            final int d = (int) (150 * Main.SCALE * Math.sin(i * 2 * Math.PI / rate));
+            final long posted = System.nanoTime();
+            SwingUtilities.invokeLater(() -> {
+                maxLag[0] = Math.max(maxLag[0], System.nanoTime() - posted);
+                note[0].dispatchEvent(event(note[0], MouseEvent.MOUSE_DRAGGED, corner, cornerOnScreen, d));
+            });
+            long next = t0 + (i + 1) * period;
+            while (System.nanoTime() < next) {
+                Thread.onSpinWait();
+            }
+        }
+        SwingUtilities.invokeAndWait(() -> note[0].dispatchEvent(event(note[0], MouseEvent.MOUSE_RELEASED, corner, cornerOnScreen, 0)));
+        long elapsed = System.nanoTime() - t0;
+
+        System.out.println("document: " + length + " characters, drag events: " + events + " in " + elapsed / 1000000 + " ms");
+        System.out.println("window resizes: " + resizes.get() + " (" + resizes.get() * 1000000000L / elapsed + " per second)");
+        System.out.println("max EDT lag behind the cursor: " + maxLag[0] / 1000000 + " ms");
+        System.exit(0);
+    }
+
+    /**
+     * a mouse event moved diagonally by d from where the resize started
+     */
+    private static MouseEvent event(Note n, int id, Point local, Point onScreen, int d) {
+        return new MouseEvent(n, id, System.currentTimeMillis(), InputEvent.BUTTON1_DOWN_MASK, local.x + d, local.y + d, onScreen.x + d, onScreen.y + d, 1, false, MouseEvent.BUTTON1);
+    }
+}
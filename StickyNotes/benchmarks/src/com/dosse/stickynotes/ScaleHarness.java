@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.awt.Color;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Random;
+import javax.swing.SwingUtilities;
+
+/**
+ * Generates a large storage with StoreGenerator, then loads it, edits some
+ * notes and saves them through the real code of Main, and fails (exit code 1)
+ * if loading, saving or the heap go over their budgets.
+ *
+ * Needs a display. Takes the same key=value arguments as StoreGenerator, plus:
+ * <ul>
+ * <li>mutations: number of edits after loading (default 200)</li>
+ * <li>loadMs, saveMs: time budgets for loading and saving, in milliseconds
+ * (default 30000 and 5000)</li>
+ * <li>heapMb: budget for the heap retained by the loaded notes (default
+ * 400)</li>
+ * </ul>
+ *
+ * The storage is created in a temporary folder, and the harness runs in a
+ * new JVM that uses it (see notebot.home in Main), so the real notes are never
+ * touched.
+ */
+public class ScaleHarness {
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("notebot.home") == null) {
+            System.exit(fork(ScaleHarness.class, args));
+        }
+        Map<String, String> p = StoreGenerator.parseArgs(args);
+        int mutations = StoreGenerator.intArg(p, "mutations", 200);
+        long loadBudget = StoreGenerator.intArg(p, "loadMs", 30000), saveBudget = StoreGenerator.intArg(p, "saveMs", 5000), heapBudget = StoreGenerator.intArg(p, "heapMb", 400);
+
+        File store = new File(Main.getStorageDir(), "sticky.dat");
+        long size = StoreGenerator.write(store, p);
+        int count = StoreGenerator.countNotes(store);
+        System.out.println("storage: " + count + " notes, " + size / 1024 + " KiB");
+
+        SwingUtilities.invokeAndWait(() -> new Note().dispose()); //load classes, fonts and L&F before the baseline
+        long base = NoteMemoryBenchmark.usedHeap();
+
+        long t = System.nanoTime();
+        if (!Main.loadState()) {
+            System.out.println("FAIL: the storage could not be loaded");
+            System.exit(1);
+        }
+        SwingUtilities.invokeAndWait(() -> {
+        }); //the notes are shown on the EDT
+        long loadMs = (System.nanoTime() - t) / 1000000;
+        long heapMb = (NoteMemoryBenchmark.usedHeap() - base) >> 20;
+
+        final ArrayList<Note> notes = Main.getNotes();
+        final Random r = new Random(7);
+        t = System.nanoTime();
+        SwingUtilities.invokeAndWait(() -> {
+            for (int i = 0; i < mutations; i++) {
+                Note n = notes.get(r.nextInt(notes.size()));
+                switch (i % 3) {
+                    case 0:
+                        n.setText(n.getText() + " edited #scale" + i);
+                        break;
+                    case 1:
+                        n.setColorScheme(Note.createCustomScheme(new Color(r.nextInt(0x1000000))));
+                        break;
+                    default:
+                        n.setLocation(r.nextInt(1200), r.nextInt(600));
+                }
+            }
+        });
+        long mutateMs = (System.nanoTime() - t) / 1000000;
+
+        t = System.nanoTime();
+        Main.flushSaves();
+        long saveMs = (System.nanoTime() - t) / 1000000;
+        long written = store.lastModified();
+        t = System.nanoTime();
+        Main.flushSaves(); //nothing changed, should be skipped
+        long idleSaveMs = (System.nanoTime() - t) / 1000000;
+        int saved = StoreGenerator.countNotes(store);
+
+        System.out.println("load:          " + loadMs + " ms (budget " + loadBudget + ")");
+        System.out.println("heap:          " + heapMb + " MiB (budget " + heapBudget + ")");
+        System.out.println(mutations + " edits:     " + mutateMs + " ms");
+        System.out.println("save:          " + saveMs + " ms (budget " + saveBudget + ")");
+        System.out.println("idle save:     " + idleSaveMs + " ms" + (store.lastModified() == written ? ", skipped" : ", NOT skipped"));
+        boolean ok = true;
+        if (saved != count) {
+            System.out.println("FAIL: saved " + saved + " notes instead of " + count);
+            ok = false;
+        }
+        if (loadMs > loadBudget || saveMs > saveBudget || heapMb > heapBudget) {
+            System.out.println("FAIL: over budget");
+            ok = false;
+        }
+        if (store.lastModified() != written) {
+            System.out.println("FAIL: the store was rewritten although nothing changed");
+            ok = false;
+        }
+        System.out.println(ok ? "PASS" : "FAIL");
+        System.exit(ok ? 0 : 1);
+    }
+
+    /**
+     * runs a harness again in a new JVM with a temporary storage folder
+     *
+     * @param harness class with the main method to run
+     * @param args arguments
+     * @return exit code of the new JVM
+     */
+    static int fork(Class<?> harness, String[] args) throws Exception {
+        return fork(harness, new String[0], args);
+    }
+
+    /**
+     * runs a harness again in a new JVM with a temporary storage folder
+     *
+     * @param harness class with the main method to run
+     * @param jvmArgs JVM options added after the ones of this JVM, so they
+     * win
+     * @param args arguments
+     * @return exit code of the new JVM
+     */
+    static int fork(Class<?> harness, String[] jvmArgs, String[] args) throws Exception {
+        File home = File.createTempFile("notebot-scale", "");
+        home.delete();
+        home.mkdirs();
+        try {
+            ArrayList<String> cmd = new ArrayList<>();
+            cmd.add(new File(System.getProperty("java.home"), "bin" + File.separator + "java").getPath());
+            cmd.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+            for (String a : jvmArgs) {
+                cmd.add(a);
+            }
+            cmd.add("-Dnotebot.home=" + home.getAbsolutePath());
+            cmd.add("-cp");
+            cmd.add(System.getProperty("java.class.path"));
+            cmd.add(harness.getName());
+            for (String a : args) {
+                cmd.add(a);
+            }
+            return new ProcessBuilder(cmd).inheritIO().start().waitFor();
+        } finally {
+            File[] files = home.listFiles();
+            if (files != null) {
+                for (File f : files) {
+                    f.delete();
+                }
+            }
+            home.delete();
+        }
+    }
+}
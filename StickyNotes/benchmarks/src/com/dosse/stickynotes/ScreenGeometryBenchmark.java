@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+import java.awt.Rectangle;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.SwingUtilities;
+
+/**
+ * Measures Note.setBounds with 8 simulated screens (a 4x2 wall of 1920x1080
+ * monitors), querying the screens on every call like it used to and with
+ * the cached layout. The real screens are queried too, to show what one
+ * query costs on this machine.
+ *
+ * Needs a display. Arguments: number of calls (default 200000).
+ */
+public class ScreenGeometryBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final int calls = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        final AtomicLong queries = new AtomicLong();
+        final Rectangle[] wall = new Rectangle[8];
+        for (int i = 0; i < wall.length; i++) {
+            wall[i] = new Rectangle((i % 4) * 1920, (i / 4) * 1080, 1920, 1080);
+        }
+        ScreenGeometry.setSource(() -> {
+            queries.incrementAndGet();
+            return wall;
+        });
+        SwingUtilities.invokeAndWait(() -> {
+            Note n = new Note();
+            for (int i = 0; i < calls / 10; i++) { //warmup
+                ScreenGeometry.refresh();
+                n.setBounds(i % 8000, i % 2000, 200, 200);
+            }
+
+            queries.set(0);
+            long t = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                ScreenGeometry.refresh(); //what every setBounds did before the layout was cached
+                n.setBounds(i % 8000, i % 2000, 200, 200);
+            }
+            long uncached = System.nanoTime() - t;
+            long uncachedQueries = queries.getAndSet(0);
+
+            t = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                n.setBounds(i % 8000, i % 2000, 200, 200);
+            }
+            long cached = System.nanoTime() - t;
+            long cachedQueries = queries.get();
+
+            t = System.nanoTime();
+            for (int i = 0; i < 1000; i++) {
+                for (GraphicsDevice d : GraphicsEnvironment.getLocalGraphicsEnvironment().getScreenDevices()) {
+                    d.getDefaultConfiguration().getBounds();
+                }
+            }
+            long real = System.nanoTime() - t;
+
+            System.out.println("setBounds calls: " + calls + ", simulated screens: " + wall.length);
+            System.out.println("query every call: " + uncached / calls + " ns/call, " + uncachedQueries + " queries");
+            System.out.println("cached layout:    " + cached / calls + " ns/call, " + cachedQueries + " queries");
+            System.out.println("one query of the real screens on this machine: " + real / 1000 + " ns");
+            n.dispose();
+        });
+        System.exit(0);
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates a storage file like the ones saved by Main.saveState, with as
+ * many notes as needed, for scale tests.
+ *
+ * Parameters, as key=value arguments:
+ * <ul>
+ * <li>notes: number of notes (default 2000)</li>
+ * <li>chars: median note size in characters (default 1500); sizes follow a
+ * log-normal distribution, so most notes are short and a few are long</li>
+ * <li>spread: standard deviation of the logarithm of the size (default
+ * 1.2)</li>
+ * <li>giants, giantChars: number of very large notes and their size (default
+ * 2 notes of 2000000 characters)</li>
+ * <li>markup: fraction of the words that are #tags or [[links]] to other
+ * notes (default 0.02). Notes are saved as plain text, so this is the only
+ * kind of formatting the storage can hold.</li>
+ * <li>schemes: number of different color schemes (default 12)</li>
+ * <li>stowed: fraction of the notes in the notebook (default 0.8)</li>
+ * <li>seed: random seed (default 42)</li>
+ * <li>out: file to write (default sticky.dat)</li>
+ * </ul>
+ */
+public class StoreGenerator {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> p = parseArgs(args);
+        File out = new File(p.getOrDefault("out", "sticky.dat"));
+        long bytes = write(out, p);
+        System.out.println("wrote " + intArg(p, "notes", 2000) + " notes, " + bytes + " bytes to " + out.getAbsolutePath());
+    }
+
+    /**
+     * @return key=value arguments as a map
+     */
+    static Map<String, String> parseArgs(String[] args) {
+        HashMap<String, String> m = new HashMap<>();
+        for (String a : args) {
+            int i = a.indexOf('=');
+            if (i <= 0) {
+                throw new IllegalArgumentException("expected key=value, got " + a);
+            }
+            m.put(a.substring(0, i).trim(), a.substring(i + 1).trim());
+        }
+        return m;
+    }
+
+    static int intArg(Map<String, String> p, String key, int def) {
+        return p.containsKey(key) ? Integer.parseInt(p.get(key)) : def;
+    }
+
+    static double doubleArg(Map<String, String> p, String key, double def) {
+        return p.containsKey(key) ? Double.parseDouble(p.get(key)) : def;
+    }
+
+    /**
+     * writes a storage file
+     *
+     * @param f file
+     * @param p parameters, see above
+     * @return size of the file in bytes
+     */
+    static long write(File f, Map<String, String> p) throws IOException {
+        int count = intArg(p, "notes", 2000), median = intArg(p, "chars", 1500), giants = intArg(p, "giants", 2), giantChars = intArg(p, "giantChars", 2000000), schemeCount = intArg(p, "schemes", 12);
+        double spread = doubleArg(p, "spread", 1.2), markup = doubleArg(p, "markup", 0.02), stowed = doubleArg(p, "stowed", 0.8);
+        Random r = new Random(Long.parseLong(p.getOrDefault("seed", "42")));
+
+        Color[][] schemes = new Color[Math.max(1, schemeCount)][];
+        for (int i = 0; i < schemes.length; i++) {
+            schemes[i] = Note.createCustomScheme(new Color(r.nextInt(0x1000000)));
+        }
+        String[] titles = new String[count];
+        for (int i = 0; i < count; i++) {
+            titles[i] = "note " + i;
+        }
+        float scale = Main.SCALE;
+        try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(f)))) {
+            oos.writeObject(scale);
+            oos.writeObject(count);
+            ArrayList<String[]> tokens = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int length = i < giants ? giantChars : (int) Math.min(giantChars, Math.max(1, median * Math.exp(r.nextGaussian() * spread)));
+                ArrayList<String> t = new ArrayList<>();
+                oos.writeObject(new Point(r.nextInt(1600), r.nextInt(800)));
+                oos.writeObject(new Dimension((int) ((200 + r.nextInt(300)) * scale), (int) ((200 + r.nextInt(300)) * scale)));
+                oos.writeObject(schemes[r.nextInt(schemes.length)]);
+                oos.writeObject(text(titles[i], length, markup, titles, r, t));
+                tokens.add(t.toArray(new String[t.size()]));
+            }
+            for (int i = 0; i < count; i++) {
+                oos.writeObject(1f);
+            }
+            for (String[] t : tokens) {
+                oos.writeObject(t);
+            }
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < count; i++) {
+                oos.writeObject(i >= giants && r.nextDouble() < stowed); //the giants stay on the desktop, where they cost the most
+                oos.writeObject(now - (long) (r.nextDouble() * 365 * 86400000L));
+            }
+            for (int i = 0; i < count; i++) {
+                oos.writeObject(new LinkedHashMap<String, Rectangle>());
+            }
+        }
+        return f.length();
+    }
+
+    /**
+     * generates the text of a note: the title on the first line, then words
+     * with some #tags and [[links]], and line breaks
+     *
+     * @param tokens receives the tags and links, as NoteIndex stores them
+     */
+    private static String text(String title, int length, double markup, String[] titles, Random r, ArrayList<String> tokens) {
+        StringBuilder sb = new StringBuilder(length + 64);
+        sb.append(title).append('\n');
+        while (sb.length() < length) {
+            double m = r.nextDouble();
+            if (m < markup / 2) {
+                String tag = "tag" + r.nextInt(50);
+                sb.append('#').append(tag);
+                tokens.add("#" + tag);
+            } else if (m < markup) {
+                String target = titles[r.nextInt(titles.length)];
+                sb.append("[[").append(target).append("]]");
+                tokens.add("[[" + target.toLowerCase(Locale.ROOT));
+            } else {
+                int w = 2 + r.nextInt(9);
+                for (int i = 0; i < w; i++) {
+                    sb.append((char) ('a' + r.nextInt(26)));
+                }
+            }
+            sb.append(r.nextInt(12) == 0 ? '\n' : ' ');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param f storage file
+     * @return number of notes in it
+     */
+    static int countNotes(File f) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+            ois.readObject(); //scale
+            return (Integer) ois.readObject();
+        }
+    }
+}
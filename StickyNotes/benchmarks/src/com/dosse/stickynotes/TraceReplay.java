@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.awt.AWTEvent;
+import java.awt.Component;
+import java.awt.Point;
+import java.awt.Robot;
+import java.awt.Toolkit;
+import java.awt.Window;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.swing.SwingUtilities;
+
+/**
+ * Replays a trace recorded with the -record flag (see InputRecorder) against
+ * a new instance of the app, started on a copy of the storage the trace was
+ * recorded with, and measures how long each event takes to be handled and
+ * painted.
+ *
+ * Needs a display. Arguments, as key=value:
+ * <ul>
+ * <li>trace: the trace-TIMESTAMP.txt file, the .dat file next to it is used
+ * as the storage</li>
+ * <li>mode: post (default) to post the events directly to the event queue,
+ * or robot to move the real mouse and press the real keys. Robot is closer to
+ * the real thing, but the windows must be where they were during the
+ * recording and nothing else must get in the way.</li>
+ * <li>speed: 1 (default) to keep the timing of the recording, 2 for twice as
+ * fast and so on, 0 to send each event as soon as the previous one was
+ * painted</li>
+ * </ul>
+ *
+ * The latency of an event is the time from sending it until the EDT has
+ * handled it and then the repaint it caused: after the event, an empty
+ * runnable is run on the EDT, which queues behind the repaint, and then
+ * another one, which runs after it. The keystroke to paint latency measured
+ * by the notes themselves (see TypingLatency) is printed too.
+ *
+ * Like ScaleHarness, the replay runs in a new JVM with a temporary storage
+ * folder, so the real notes are never touched.
+ */
+public class TraceReplay {
+
+    private static final IdentityHashMap<Note, Boolean> known = new IdentityHashMap<>();
+    private static final ArrayList<Note> byId = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("notebot.home") == null) {
+            System.exit(ScaleHarness.fork(TraceReplay.class, args));
+        }
+        Map<String, String> p = StoreGenerator.parseArgs(args);
+        if (!p.containsKey("trace")) {
+            System.err.println("usage: TraceReplay trace=trace-TIMESTAMP.txt [mode=post|robot] [speed=1]");
+            System.exit(2);
+        }
+        File trace = new File(p.get("trace"));
+        boolean robotMode = "robot".equals(p.getOrDefault("mode", "post"));
+        double speed = StoreGenerator.doubleArg(p, "speed", 1);
+
+        List<String> lines = Files.readAllLines(trace.toPath(), StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !lines.get(0).startsWith(InputRecorder.HEADER)) {
+            System.err.println("not a trace: " + trace);
+            System.exit(2);
+        }
+        float scale = Float.parseFloat(lines.get(0).substring(InputRecorder.HEADER.length()).trim());
+        if (scale != Main.SCALE) {
+            System.out.println("warning: recorded at scale " + scale + ", replaying at " + Main.SCALE);
+        }
+        File store = new File(trace.getPath().replaceAll("\\.txt$", "") + ".dat");
+        Files.copy(store.toPath(), new File(Main.getStorageDir(), "sticky.dat").toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        Main.main(new String[]{"-autostartup"});
+        SwingUtilities.invokeAndWait(() -> {
+        });
+        for (Note n : Main.getNotes()) { //numbered like InputRecorder does
+            known.put(n, true);
+            byId.add(n);
+        }
+
+        Robot robot = robotMode ? new Robot() : null;
+        LinkedHashMap<String, ArrayList<Long>> latencies = new LinkedHashMap<>();
+        int skipped = 0;
+        long start = System.nanoTime();
+        for (int i = 1; i < lines.size(); i++) {
+            String[] f = lines.get(i).split(" ");
+            long at = Long.parseLong(f[0]) * 1000;
+            if (speed > 0) {
+                long wait = (long) (at / speed) - (System.nanoTime() - start);
+                if (wait > 0) {
+                    Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+                }
+            }
+            Window w = findWindow(f[1], Integer.parseInt(f[2]));
+            int id = Integer.parseInt(f[4]);
+            if (w == null) {
+                skipped++;
+                continue;
+            }
+            long t = System.nanoTime();
+            if (robot != null) {
+                if (!robotAction(robot, w, id, f)) {
+                    continue;
+                }
+                robot.waitForIdle();
+            } else {
+                Toolkit.getDefaultToolkit().getSystemEventQueue().postEvent(createEvent(w, id, f));
+            }
+            SwingUtilities.invokeAndWait(() -> {
+            }); //the event was handled, the repaint is queued
+            SwingUtilities.invokeAndWait(() -> {
+            }); //and painted
+            latencies.computeIfAbsent(category(id), k -> new ArrayList<>()).add(System.nanoTime() - t);
+        }
+
+        System.out.println("replayed " + (lines.size() - 1 - skipped) + " events in " + (System.nanoTime() - start) / 1000000 + " ms, " + skipped + " skipped (window not found)");
+        System.out.println(String.format(Locale.ROOT, "%-12s%10s%10s%10s%10s", "event", "count", "p50 ms", "p99 ms", "max ms"));
+        for (Map.Entry<String, ArrayList<Long>> e : latencies.entrySet()) {
+            long[] l = new long[e.getValue().size()];
+            for (int i = 0; i < l.length; i++) {
+                l[i] = e.getValue().get(i);
+            }
+            Arrays.sort(l);
+            System.out.println(String.format(Locale.ROOT, "%-12s%10d%10.1f%10.1f%10.1f", e.getKey(), l.length, l[(l.length - 1) / 2] / 1e6, l[(int) ((l.length - 1) * 0.99)] / 1e6, l[l.length - 1] / 1e6));
+        }
+        final String[] typing = new String[1];
+        SwingUtilities.invokeAndWait(() -> typing[0] = TypingLatency.report());
+        System.out.println();
+        System.out.println("keystroke to paint, measured by the notes:");
+        System.out.print(typing[0]);
+        System.exit(0);
+    }
+
+    private static String category(int id) {
+        switch (id) {
+            case KeyEvent.KEY_PRESSED:
+            case KeyEvent.KEY_RELEASED:
+            case KeyEvent.KEY_TYPED:
+                return "key";
+            case MouseEvent.MOUSE_DRAGGED:
+                return "drag";
+            case MouseEvent.MOUSE_MOVED:
+                return "move";
+            case MouseEvent.MOUSE_WHEEL:
+                return "wheel";
+            default:
+                return "click";
+        }
+    }
+
+    /**
+     * @return the note with the given id, null if there's none. Notes that
+     * were created after the start are numbered when they're first needed,
+     * starting from the topmost one, like the recorder did.
+     */
+    private static Note note(int id) {
+        while (id >= byId.size()) {
+            ArrayList<Note> notes = Main.getNotes();
+            Note added = null;
+            for (int i = notes.size() - 1; i >= 0 && added == null; i--) {
+                if (!known.containsKey(notes.get(i))) {
+                    added = notes.get(i);
+                }
+            }
+            if (added == null) {
+                return null;
+            }
+            known.put(added, true);
+            byId.add(added);
+        }
+        return byId.get(id);
+    }
+
+    /**
+     * @return the window of the given class that belongs to the note, null if
+     * it's not showing
+     */
+    private static Window findWindow(String windowClass, int noteId) throws Exception {
+        final Window[] found = new Window[1];
+        SwingUtilities.invokeAndWait(() -> {
+            Note owner = noteId < 0 ? null : note(noteId);
+            if (noteId >= 0 && owner == null) {
+                return;
+            }
+            for (Window w : Window.getWindows()) {
+                if (w.isShowing() && w.getClass().getName().equals(windowClass) && InputRecorder.noteOf(w) == owner) {
+                    found[0] = w; //the most recent one
+                }
+            }
+        });
+        return found[0];
+    }
+
+    /**
+     * @return the event described by the fields of a line of the trace
+     */
+    private static AWTEvent createEvent(Window w, int id, String[] f) {
+        long when = System.currentTimeMillis();
+        int x = Integer.parseInt(f[5]), y = Integer.parseInt(f[6]), modifiers = Integer.parseInt(f[7]);
+        if (id >= KeyEvent.KEY_FIRST && id <= KeyEvent.KEY_LAST) {
+            Component c = w.getMostRecentFocusOwner();
+            return new KeyEvent(c == null ? w : c, id, when, modifiers, Integer.parseInt(f[8]), (char) Integer.parseInt(f[9]), Integer.parseInt(f[10]));
+        }
+        Point s = w.getLocationOnScreen();
+        int button = Integer.parseInt(f[8]), clicks = Integer.parseInt(f[9]);
+        boolean popup = "1".equals(f[10]);
+        if (id == MouseEvent.MOUSE_WHEEL) {
+            return new MouseWheelEvent(w, id, when, modifiers, x, y, s.x + x, s.y + y, clicks, popup, Integer.parseInt(f[11]), Integer.parseInt(f[12]), Integer.parseInt(f[13]));
+        }
+        return new MouseEvent(w, id, when, modifiers, x, y, s.x + x, s.y + y, clicks, popup, button);
+    }
+
+    /**
+     * does what a line of the trace describes with the real mouse and
+     * keyboard
+     *
+     * @return false if the event is created by the system from other events
+     * (typed keys, clicks, enter and exit) and was not replayed
+     */
+    private static boolean robotAction(Robot r, Window w, int id, String[] f) {
+        if (id >= KeyEvent.KEY_FIRST && id <= KeyEvent.KEY_LAST) {
+            if (id == KeyEvent.KEY_TYPED) {
+                return false;
+            }
+            if (id == KeyEvent.KEY_PRESSED) {
+                r.keyPress(Integer.parseInt(f[8]));
+            } else {
+                r.keyRelease(Integer.parseInt(f[8]));
+            }
+            return true;
+        }
+        if (id == MouseEvent.MOUSE_CLICKED || id == MouseEvent.MOUSE_ENTERED || id == MouseEvent.MOUSE_EXITED) {
+            return false;
+        }
+        Point s = w.getLocationOnScreen();
+        r.mouseMove(s.x + Integer.parseInt(f[5]), s.y + Integer.parseInt(f[6])); //the window may have moved since the previous event
+        if (id == MouseEvent.MOUSE_PRESSED) {
+            r.mousePress(InputEvent.getMaskForButton(Integer.parseInt(f[8])));
+        } else if (id == MouseEvent.MOUSE_RELEASED) {
+            r.mouseRelease(InputEvent.getMaskForButton(Integer.parseInt(f[8])));
+        } else if (id == MouseEvent.MOUSE_WHEEL) {
+            r.mouseWheel(Integer.parseInt(f[13]));
+        }
+        return true;
+    }
+}
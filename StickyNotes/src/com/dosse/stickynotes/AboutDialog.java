@@ -25,6 +25,8 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.RenderingHints;
+import java.awt.Toolkit;
+import java.awt.datatransfer.StringSelection;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
@@ -60,7 +62,10 @@ public class AboutDialog extends JDialog {
         super(parent, modal);
         setDefaultCloseOperation(javax.swing.WindowConstants.DISPOSE_ON_CLOSE);
         setLayout(null);
-        setPreferredSize(new Dimension(DEFAULT_WIDTH, DEFAULT_HEIGHT));
+        //typing latency, if there's anything to show
+        final String[][] latency = TypingLatency.getRows();
+        int latencyHeight = latency.length == 0 ? 0 : (int) ((latency.length + 2) * 18 * Main.SCALE);
+        setPreferredSize(new Dimension(DEFAULT_WIDTH, DEFAULT_HEIGHT + latencyHeight));
         setResizable(false);
         setTitle(locBundle.getString("ABOUT"));
         getContentPane().setBackground(new Color(251, 251, 251));
@@ -84,7 +89,7 @@ public class AboutDialog extends JDialog {
         int padding = (int) (16 * Main.SCALE);
         main.setBounds(padding, padding, 
             (int) (DEFAULT_WIDTH - padding * 2 - getInsets().left - getInsets().right), 
-            (int) (DEFAULT_HEIGHT - padding * 2 - getInsets().top - getInsets().bottom));
+            (int) (DEFAULT_HEIGHT + latencyHeight - padding * 2 - getInsets().top - getInsets().bottom));
         
         // Icon and title section
         JLabel icon = new JLabel();
@@ -157,6 +162,38 @@ public class AboutDialog extends JDialog {
         copy.setText("<html>" + locBundle.getString("ABOUT_COPYRIGHT") + "</html>");
         copy.setBounds((int)(20 * Main.SCALE), (int) (250 * Main.SCALE), main.getWidth() - (int)(40 * Main.SCALE), (int) (80 * Main.SCALE));
         main.add(copy);
+
+        if (latency.length > 0) {
+            //click to copy the report, to attach it to bug reports
+            StringBuilder sb = new StringBuilder("<html>" + locBundle.getString("ABOUT_LATENCY") + "<table cellspacing=0 cellpadding=0><tr>");
+            for (String h : new String[]{locBundle.getString("ABOUT_LATENCY_SIZE"), locBundle.getString("ABOUT_LATENCY_KEYS"), "p50", "p99", "max"}) {
+                sb.append("<td width=").append((int) (64 * Main.SCALE)).append('>').append(h).append("</td>");
+            }
+            sb.append("</tr>");
+            for (String[] r : latency) {
+                sb.append("<tr>");
+                for (int i = 0; i < r.length; i++) {
+                    sb.append("<td>").append(r[i]).append(i >= 2 ? " ms" : "").append("</td>");
+                }
+                sb.append("</tr>");
+            }
+            JLabel lat = new JLabel(sb.append("</table></html>").toString());
+            lat.setFont(infoFont.deriveFont(11f * Main.SCALE));
+            lat.setForeground(textColor);
+            lat.setVerticalAlignment(SwingConstants.TOP);
+            lat.setCursor(new Cursor(Cursor.HAND_CURSOR));
+            lat.setBounds((int)(20 * Main.SCALE), (int) (330 * Main.SCALE), main.getWidth() - (int)(40 * Main.SCALE), latencyHeight);
+            lat.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseReleased(MouseEvent e) {
+                    try {
+                        Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(TypingLatency.report()), null);
+                    } catch (Throwable t) {
+                    }
+                }
+            });
+            main.add(lat);
+        }
         
         // Close button - Windows 11 style
         JButton ok = new JButton(locBundle.getString("ABOUT_CLOSE")) {
@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The one background thread of NoteBot, used for saving and for all the
+ * periodic work.
+ *
+ * Every task has a name. Exceptions thrown by a task are reported on stderr
+ * with the name of the task (only the first few times, so that a task that
+ * keeps failing doesn't fill the log) and counted, and periodic tasks keep
+ * running after an error. Runs, failures and durations of each task can be
+ * seen in jconsole, see RuntimeStats.
+ *
+ * Periodic work can be paused when the app is idle, so that the thread isn't
+ * woken up at all, and resumed when something happens.
+ */
+final class Background {
+
+    private static final int MAX_REPORTED_ERRORS = 3; //per task
+
+    /**
+     * runs, failures and durations of a task
+     */
+    private static final class Stats {
+
+        volatile long runs = 0, failures = 0, totalNanos = 0, maxNanos = 0;
+    }
+
+    /**
+     * a periodic task, scheduled only while periodic work is not paused
+     */
+    private static final class Periodic {
+
+        final String name;
+        final Runnable task;
+        final long periodMs;
+        ScheduledFuture<?> future = null;
+
+        Periodic(String name, Runnable task, long periodMs) {
+            this.name = name;
+            this.task = task;
+            this.periodMs = periodMs;
+        }
+    }
+
+    private static final ScheduledThreadPoolExecutor EXECUTOR;
+    private static final Map<String, Stats> stats = new ConcurrentHashMap<>();
+    private static final ArrayList<Periodic> periodic = new ArrayList<>(); //guarded by itself
+    private static volatile boolean paused = false, shutdown = false;
+
+    static {
+        EXECUTOR = new ScheduledThreadPoolExecutor(1, (Runnable r) -> {
+            Thread t = new Thread(r, "NoteBot background");
+            t.setDaemon(true);
+            return t;
+        });
+        EXECUTOR.setRemoveOnCancelPolicy(true); //cancelled saves don't stay in the queue until their time
+        EXECUTOR.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        EXECUTOR.setContinueExistingPeriodicTasksAfterShutdownPolicy(false);
+    }
+
+    private Background() {
+    }
+
+    /**
+     * @return the task wrapped so that it's timed and its errors are reported
+     */
+    private static Runnable wrap(final String name, final Runnable task) {
+        final Stats s = stats.computeIfAbsent(name, (String k) -> new Stats());
+        return () -> {
+            long t = System.nanoTime();
+            try {
+                task.run();
+            } catch (Throwable e) {
+                if (s.failures++ < MAX_REPORTED_ERRORS) {
+                    System.err.println("Background task \"" + name + "\" failed:");
+                    e.printStackTrace();
+                }
+            } finally {
+                t = System.nanoTime() - t;
+                s.runs++;
+                s.totalNanos += t;
+                s.maxNanos = Math.max(s.maxNanos, t);
+            }
+        };
+    }
+
+    /**
+     * runs a task as soon as possible
+     *
+     * @param name name of the task, for errors and metrics
+     * @param task task
+     */
+    static void execute(String name, Runnable task) {
+        if (!shutdown) {
+            EXECUTOR.execute(wrap(name, task));
+        }
+    }
+
+    /**
+     * runs a task once after a delay
+     *
+     * @param name name of the task, for errors and metrics
+     * @param task task
+     * @param delayMs delay in milliseconds
+     * @return the scheduled task, null after shutdown
+     */
+    static ScheduledFuture<?> schedule(String name, Runnable task, long delayMs) {
+        if (shutdown) {
+            return null;
+        }
+        return EXECUTOR.schedule(wrap(name, task), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * runs a task periodically, until shutdown. The first run is after one
+     * period.
+     *
+     * @param name name of the task, for errors and metrics
+     * @param task task
+     * @param periodMs period in milliseconds
+     */
+    static void every(String name, Runnable task, long periodMs) {
+        Periodic p = new Periodic(name, wrap(name, task), periodMs);
+        synchronized (periodic) {
+            periodic.add(p);
+            if (!paused && !shutdown) {
+                start(p);
+            }
+        }
+    }
+
+    private static void start(Periodic p) {
+        p.future = EXECUTOR.scheduleWithFixedDelay(p.task, p.periodMs, p.periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * stops all periodic work until resume() is called. Can be called by a
+     * periodic task.
+     */
+    static void pause() {
+        synchronized (periodic) {
+            if (paused) {
+                return;
+            }
+            paused = true;
+            for (Periodic p : periodic) {
+                if (p.future != null) {
+                    p.future.cancel(false);
+                    p.future = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * starts the periodic work again after pause(). Cheap when it's not
+     * paused, so it can be called every time something happens.
+     */
+    static void resume() {
+        if (!paused) {
+            return;
+        }
+        synchronized (periodic) {
+            if (!paused || shutdown) {
+                return;
+            }
+            paused = false;
+            for (Periodic p : periodic) {
+                start(p);
+            }
+        }
+    }
+
+    /**
+     * @return true if periodic work is paused
+     */
+    static boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * stops the background thread: periodic and delayed tasks are cancelled,
+     * the task that's running and the ones waiting to run now are completed,
+     * waiting at most the given time. Nothing can be scheduled afterwards.
+     *
+     * @param timeoutMs maximum wait in milliseconds
+     * @return true if everything was completed in time
+     */
+    static boolean shutdown(long timeoutMs) {
+        synchronized (periodic) {
+            shutdown = true;
+        }
+        EXECUTOR.shutdown();
+        try {
+            return EXECUTOR.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return one line for each task that was used: name, runs, failures,
+     * average and max duration
+     */
+    static String[] getTaskStats() {
+        ArrayList<String> l = new ArrayList<>();
+        for (Map.Entry<String, Stats> e : stats.entrySet()) {
+            Stats s = e.getValue();
+            l.add(String.format(Locale.ROOT, "%s: %d runs, %d failures, avg %.1f ms, max %.1f ms", e.getKey(), s.runs, s.failures, s.totalNanos / 1e6 / Math.max(1, s.runs), s.maxNanos / 1e6));
+        }
+        l.sort(null);
+        return l.toArray(new String[l.size()]);
+    }
+
+    /**
+     * @return total number of failed task runs
+     */
+    static long getFailures() {
+        long n = 0;
+        for (Stats s : stats.values()) {
+            n += s.failures;
+        }
+        return n;
+    }
+}
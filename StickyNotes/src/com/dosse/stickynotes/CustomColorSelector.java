@@ -25,6 +25,8 @@ import java.awt.RenderingHints;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.stream.IntStream;
 import javax.swing.JPanel;
 
 /**
@@ -41,6 +43,8 @@ public abstract class CustomColorSelector extends JPanel {
 
     private static final float BASE_SATURATION = 0.7f;  // More vibrant colors
 
+    private BufferedImage picker = null; //gradient and grayscale bar, rendered once per size
+
     public CustomColorSelector() {
         setLayout(null);
         setPreferredSize(new Dimension(DEFAULT_WIDTH, DEFAULT_HEIGHT));
@@ -61,10 +65,8 @@ public abstract class CustomColorSelector extends JPanel {
             public void mouseReleased(MouseEvent e) {
                 try {
                     // Read the color clicked by the user
-                    BufferedImage b = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_RGB);
-                    paintColorPicker(b.getGraphics());
-                    int color = b.getRGB(e.getX(), e.getY());
-                    onColorSelected(new Color(color));
+                    int color = getPicker().getRGB(e.getX(), e.getY());
+                    onColorSelected(new Color(color)); //padding is transparent, reads as black like it always did
                 } catch (Throwable t) {
                     // Coordinates can be out of bounds if the user drags the cursor around
                 }
@@ -72,31 +74,54 @@ public abstract class CustomColorSelector extends JPanel {
         });
     }
     
-    private void paintColorPicker(Graphics g) {
-        Graphics2D g2 = (Graphics2D) g;
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        
-        float width = getWidth() - PADDING * 2;
-        float height = getHeight() - GRAYSCALE_HEIGHT - PADDING * 3;
-        float fx, fy;
-        
+    /**
+     * @return the picker image for the current size, rendered if the size
+     * changed since the last time
+     */
+    private BufferedImage getPicker() {
+        int w = Math.max(1, getWidth()), h = Math.max(1, getHeight());
+        if (picker == null || picker.getWidth() != w || picker.getHeight() != h) {
+            picker = renderPicker(w, h);
+        }
+        return picker;
+    }
+
+    /**
+     * renders the gradient and the grayscale bar by writing the raster
+     * directly. The rows of the gradient are independent so they're computed
+     * in parallel.
+     *
+     * @param w width of the component
+     * @param h height of the component
+     * @return image, transparent outside the gradient and the bar
+     */
+    static BufferedImage renderPicker(int w, int h) {
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        final int[] px = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+        final int width = w - PADDING * 2;
+        final int height = h - GRAYSCALE_HEIGHT - PADDING * 3;
+        if (width <= 0 || height <= 0) {
+            return img;
+        }
         // Color gradient
-        for (float y = 0; y < height; y++) {
-            for (float x = 0; x < width; x++) {
-                fx = x / width;
-                fy = y / height;
-                g2.setColor(Color.getHSBColor(fx, 
-                    fy < 0.5f ? (BASE_SATURATION - BASE_SATURATION * 2 * (0.5f - fy)) : BASE_SATURATION, 
-                    fy < 0.5f ? 1f : (1 - (2 * (fy - 0.5f)))));
-                g2.fillRect((int) (x + PADDING), (int) (y + PADDING), 1, 1);
+        IntStream.range(0, height).parallel().forEach((int y) -> {
+            float fy = (float) y / height;
+            float sat = fy < 0.5f ? (BASE_SATURATION - BASE_SATURATION * 2 * (0.5f - fy)) : BASE_SATURATION;
+            float bri = fy < 0.5f ? 1f : (1 - (2 * (fy - 0.5f)));
+            int row = (y + PADDING) * w + PADDING;
+            for (int x = 0; x < width; x++) {
+                px[row + x] = Color.HSBtoRGB((float) x / width, sat, bri);
             }
-        }
-        
+        });
         // Grayscale bar
-        for (float x = 0; x < width; x++) {
-            g2.setColor(Color.getHSBColor(0, 0, x / width));
-            g2.fillRect((int) (x + PADDING), (int) (height + PADDING * 2), 1, GRAYSCALE_HEIGHT);
+        int top = height + PADDING * 2;
+        for (int x = 0; x < width; x++) {
+            px[top * w + PADDING + x] = Color.HSBtoRGB(0, 0, (float) x / width);
+        }
+        for (int y = 1; y < GRAYSCALE_HEIGHT && top + y < h; y++) {
+            System.arraycopy(px, top * w + PADDING, px, (top + y) * w + PADDING, width);
         }
+        return img;
     }
 
     @Override
@@ -114,7 +139,7 @@ public abstract class CustomColorSelector extends JPanel {
         
         g2.dispose();
         
-        paintColorPicker(g);
+        g.drawImage(getPicker(), 0, 0, null);
     }
 
     public abstract void onColorSelected(Color c);
@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import javax.swing.SwingUtilities;
+
+/**
+ * Detects when the EDT stops responding and finds out what it's doing.
+ *
+ * A daemon thread posts a heartbeat to the EDT and waits for it. If the EDT
+ * doesn't run it within the threshold, its stack is sampled every few
+ * milliseconds until it does. The most frequent frames on top of the stack,
+ * and the most frequent frames of our own code anywhere in the stack (which
+ * tell what it was doing: saving, setting a big text, painting...), are
+ * appended to edt-stalls.log in the storage folder, which is rolled over when
+ * it gets too big.
+ *
+ * Disabled by default: enabled with the -watchdog flag or watchdog=true in
+ * config.properties, with an optional watchdog.threshold in milliseconds.
+ * When disabled, the thread is never started and the counters read by
+ * RuntimeStats stay at 0. When enabled, the cost is one empty runnable on the
+ * EDT per threshold period.
+ */
+final class EdtWatchdog extends Thread {
+
+    private static final long SAMPLE_INTERVAL_MS = 5;
+    private static final int MAX_SAMPLES = 2000; //a stall longer than this many samples is still timed, but not sampled anymore
+    private static final int TOP_FRAMES = 12; //frames written to the log for each stall
+    private static final long MAX_LOG_SIZE = 1 << 20;
+    private static final String LOG_NAME = "edt-stalls.log";
+    private static final String APP_PACKAGE = "com.dosse.stickynotes.";
+
+    private static volatile EdtWatchdog instance = null;
+
+    private final long thresholdMs;
+    private final Thread edt;
+    private volatile long answered = 0; //last heartbeat run by the EDT
+    private volatile long stalls = 0, longestStallMs = 0;
+    private boolean failed = false; //true after an error was reported, only used by the watchdog thread
+
+    /**
+     * starts the watchdog, if it's not already running
+     *
+     * @param thresholdMs the EDT is considered stalled if a heartbeat isn't
+     * run within this many milliseconds
+     */
+    static synchronized void start(long thresholdMs) {
+        if (instance != null) {
+            return;
+        }
+        final Thread[] edt = new Thread[1];
+        try {
+            SwingUtilities.invokeAndWait(() -> edt[0] = Thread.currentThread());
+        } catch (Exception e) {
+            return;
+        }
+        instance = new EdtWatchdog(Math.max(10, thresholdMs), edt[0]);
+        instance.start();
+    }
+
+    /**
+     * @return true if the watchdog is running
+     */
+    static boolean isRunning() {
+        return instance != null;
+    }
+
+    /**
+     * @return number of stalls detected since the watchdog was started, 0 if
+     * it's not running
+     */
+    static long getStallCount() {
+        EdtWatchdog w = instance;
+        return w == null ? 0 : w.stalls;
+    }
+
+    /**
+     * @return duration of the longest stall detected so far in milliseconds, 0
+     * if the watchdog is not running
+     */
+    static long getLongestStallMs() {
+        EdtWatchdog w = instance;
+        return w == null ? 0 : w.longestStallMs;
+    }
+
+    private EdtWatchdog(long thresholdMs, Thread edt) {
+        super("EDT watchdog");
+        this.thresholdMs = thresholdMs;
+        this.edt = edt;
+        setDaemon(true);
+        setPriority(Thread.MAX_PRIORITY); //must keep running when the app is busy
+    }
+
+    @Override
+    public void run() {
+        long beat = 0;
+        for (;;) {
+            try {
+                final long b = ++beat;
+                long sent = System.nanoTime();
+                SwingUtilities.invokeLater(() -> answered = b);
+                sleep(thresholdMs);
+                if (answered >= b) {
+                    continue;
+                }
+                //stalled: sample the EDT until it runs the heartbeat
+                HashMap<StackTraceElement, int[]> self = new HashMap<>(), total = new HashMap<>();
+                int samples = 0;
+                while (answered < b) {
+                    if (samples < MAX_SAMPLES) {
+                        StackTraceElement[] stack = edt.getStackTrace();
+                        if (stack.length > 0) {
+                            samples++;
+                            count(self, stack[0]);
+                            HashSet<StackTraceElement> seen = new HashSet<>();
+                            for (StackTraceElement f : stack) {
+                                if (f.getClassName().startsWith(APP_PACKAGE) && seen.add(f)) { //recursion counts once
+                                    count(total, f);
+                                }
+                            }
+                        }
+                    }
+                    sleep(SAMPLE_INTERVAL_MS);
+                }
+                long durationMs = (System.nanoTime() - sent) / 1000000L;
+                stalls++;
+                longestStallMs = Math.max(longestStallMs, durationMs);
+                log(durationMs, samples, self, total);
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                if (!failed) { //reported once, the watchdog keeps going and the next stalls may be logged
+                    failed = true;
+                    System.err.println("EDT watchdog error: " + e);
+                }
+            }
+        }
+    }
+
+    private static void count(Map<StackTraceElement, int[]> m, StackTraceElement f) {
+        int[] c = m.get(f);
+        if (c == null) {
+            m.put(f, new int[]{1});
+        } else {
+            c[0]++;
+        }
+    }
+
+    private static List<Map.Entry<StackTraceElement, int[]>> top(Map<StackTraceElement, int[]> m) {
+        ArrayList<Map.Entry<StackTraceElement, int[]>> l = new ArrayList<>(m.entrySet());
+        l.sort((Map.Entry<StackTraceElement, int[]> a, Map.Entry<StackTraceElement, int[]> b) -> Integer.compare(b.getValue()[0], a.getValue()[0]));
+        return l.subList(0, Math.min(TOP_FRAMES, l.size()));
+    }
+
+    /**
+     * appends a stall to the log, rolling it over to edt-stalls.log.1 when it
+     * gets bigger than 1MB
+     */
+    private void log(long durationMs, int samples, Map<StackTraceElement, int[]> self, Map<StackTraceElement, int[]> total) throws IOException {
+        File f = new File(Main.getStorageDir(), LOG_NAME);
+        if (f.length() > MAX_LOG_SIZE) {
+            File old = new File(Main.getStorageDir(), LOG_NAME + ".1");
+            old.delete();
+            f.renameTo(old);
+        }
+        try (PrintWriter w = new PrintWriter(new OutputStreamWriter(new FileOutputStream(f, true), StandardCharsets.UTF_8))) {
+            w.println(new Date() + " - EDT stalled for " + durationMs + " ms (threshold " + thresholdMs + " ms, " + samples + " samples)");
+            w.println("  on top of the stack:");
+            for (Map.Entry<StackTraceElement, int[]> e : top(self)) {
+                w.println("    " + e.getValue()[0] * 100 / Math.max(1, samples) + "%\t" + e.getKey());
+            }
+            w.println("  our code anywhere in the stack:");
+            for (Map.Entry<StackTraceElement, int[]> e : top(total)) {
+                w.println("    " + e.getValue()[0] * 100 / Math.max(1, samples) + "%\t" + e.getKey());
+            }
+            w.println();
+        }
+    }
+}
@@ -0,0 +1,485 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.awt.Color;
+import java.awt.Cursor;
+import java.awt.Dimension;
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+import java.awt.Insets;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.beans.PropertyChangeEvent;
+import java.util.Arrays;
+import java.util.ResourceBundle;
+import java.util.concurrent.ExecutionException;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.JTextPane;
+import javax.swing.JToggleButton;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+import javax.swing.text.StyledDocument;
+
+/**
+ * Find and replace bar shown at the top of a note.
+ *
+ * Matching runs on a SwingWorker over a snapshot of the document taken with a
+ * Segment, so the EDT only pays for one array copy even on multi-megabyte
+ * notes. Results computed against an older version of the document are
+ * discarded and the search is restarted.
+ */
+public class FindBar extends JPanel {
+
+    private static final ResourceBundle locBundle = ResourceBundle.getBundle("com/dosse/stickynotes/locale/locale");
+    private static final int SEARCH_DELAY_MS = 150; //delay between the last keystroke in the find field and the start of the search
+    private static final int FIELD_WIDTH = (int) (60 * Main.SCALE), FIELD_HEIGHT = (int) (20 * Main.SCALE);
+
+    private final Note note;
+    private final JTextPane text;
+    private final JTextField findField, replaceField;
+    private final JToggleButton matchCase;
+    private final JLabel status;
+    private final JButton prev, next, replace, replaceAll, close;
+    private final Timer searchTimer;
+
+    private int[] matches = new int[0]; //start offsets of the matches of the current query, sorted
+    private int matchLength = 0;
+    private int current = -1; //index of the selected match in matches, -1 if none
+    private long docVersion = 0; //incremented on every document change, used to discard stale search results
+    private long matchesVersion = -1; //docVersion the matches were computed for
+    private SwingWorker<int[], Void> worker = null;
+    private Document observed = null;
+
+    private final DocumentListener docListener = new DocumentListener() {
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            documentChanged();
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            documentChanged();
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+            //attribute changes don't move matches
+        }
+    };
+
+    public FindBar(Note note, JTextPane text) {
+        this.note = note;
+        this.text = text;
+        //follow the text pane when its document is replaced (see Note.compact), the matches are then searched again in the new one
+        text.addPropertyChangeListener("document", (PropertyChangeEvent e) -> {
+            if (observed != null) {
+                observed.removeDocumentListener(docListener);
+                observed = text.getDocument();
+                observed.addDocumentListener(docListener);
+                documentChanged();
+            }
+        });
+        setLayout(new GridBagLayout());
+        setOpaque(false);
+        setBorder(BorderFactory.createEmptyBorder(0, (int) (6 * Main.SCALE), (int) (2 * Main.SCALE), (int) (6 * Main.SCALE)));
+
+        findField = createField(locBundle.getString("FIND"));
+        replaceField = createField(locBundle.getString("REPLACE"));
+        matchCase = new JToggleButton("Aa");
+        matchCase.setToolTipText(locBundle.getString("FIND_MATCH_CASE"));
+        styleButton(matchCase);
+        prev = createButton("↑", locBundle.getString("FIND_PREVIOUS"));
+        next = createButton("↓", locBundle.getString("FIND_NEXT"));
+        replace = createButton("↵", locBundle.getString("REPLACE"));
+        replaceAll = createButton("↵*", locBundle.getString("REPLACE_ALL"));
+        close = createButton("×", locBundle.getString("FIND_CLOSE"));
+        status = new JLabel();
+        status.setFont(Main.SMALL_FONT);
+
+        //first row: query and navigation, second row: replacement and match count
+        int gap = (int) (2 * Main.SCALE);
+        GridBagConstraints c = new GridBagConstraints();
+        c.insets = new Insets(gap, 0, 0, gap);
+        c.fill = GridBagConstraints.HORIZONTAL;
+        c.gridy = 0;
+        c.weightx = 1;
+        add(findField, c);
+        c.weightx = 0;
+        add(matchCase, c);
+        add(prev, c);
+        add(next, c);
+        c.insets = new Insets(gap, 0, 0, 0);
+        add(close, c);
+        c.insets = new Insets(gap, 0, 0, gap);
+        c.gridy = 1;
+        c.weightx = 1;
+        add(replaceField, c);
+        c.weightx = 0;
+        add(replace, c);
+        add(replaceAll, c);
+        c.gridwidth = GridBagConstraints.REMAINDER;
+        c.insets = new Insets(gap, 0, 0, 0);
+        add(status, c);
+
+        searchTimer = new Timer(SEARCH_DELAY_MS, (ActionEvent e) -> startSearch());
+        searchTimer.setRepeats(false);
+
+        findField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+        matchCase.addActionListener((ActionEvent e) -> startSearch());
+        prev.addActionListener((ActionEvent e) -> select(current - 1));
+        next.addActionListener((ActionEvent e) -> select(current + 1));
+        replace.addActionListener((ActionEvent e) -> replaceCurrent());
+        replaceAll.addActionListener((ActionEvent e) -> replaceAll());
+        close.addActionListener((ActionEvent e) -> note.hideFindBar());
+
+        KeyAdapter keys = new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
+                    note.hideFindBar();
+                    e.consume();
+                } else if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+                    if (e.getSource() == replaceField) {
+                        replaceCurrent();
+                    } else {
+                        select(e.isShiftDown() ? current - 1 : current + 1);
+                    }
+                    e.consume();
+                }
+            }
+        };
+        findField.addKeyListener(keys);
+        replaceField.addKeyListener(keys);
+        updateStatus();
+    }
+
+    private JTextField createField(String tooltip) {
+        JTextField f = new JTextField();
+        f.setFont(Main.SMALL_FONT);
+        f.setToolTipText(tooltip);
+        f.setPreferredSize(new Dimension(FIELD_WIDTH, FIELD_HEIGHT));
+        f.setMinimumSize(new Dimension(FIELD_HEIGHT, FIELD_HEIGHT));
+        f.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(new Color(0, 0, 0, 40), 1),
+                BorderFactory.createEmptyBorder(0, (int) (3 * Main.SCALE), 0, (int) (3 * Main.SCALE))));
+        return f;
+    }
+
+    private JButton createButton(String label, String tooltip) {
+        JButton b = new JButton(label);
+        b.setToolTipText(tooltip);
+        styleButton(b);
+        return b;
+    }
+
+    private void styleButton(javax.swing.AbstractButton b) {
+        b.setFont(Main.SMALL_FONT);
+        b.setMargin(new Insets(0, (int) (3 * Main.SCALE), 0, (int) (3 * Main.SCALE)));
+        b.setPreferredSize(new Dimension(Math.max(FIELD_HEIGHT, b.getPreferredSize().width), FIELD_HEIGHT));
+        b.setFocusPainted(false);
+        b.setBorderPainted(false);
+        b.setContentAreaFilled(b instanceof JToggleButton);
+        b.setCursor(new Cursor(Cursor.HAND_CURSOR));
+    }
+
+    /**
+     * applies the colors of the note to the bar
+     *
+     * @param background internal color of the note
+     * @param foreground text color of the note
+     */
+    public void updateTheme(Color background, Color foreground) {
+        for (java.awt.Component c : getComponents()) {
+            c.setForeground(foreground);
+            if (c instanceof JTextField) {
+                c.setBackground(background);
+                ((JTextField) c).setCaretColor(foreground);
+            }
+        }
+        matchCase.setBackground(background);
+    }
+
+    /**
+     * called by the note when the bar is shown: starts tracking the document
+     * and focuses the find field, prefilled with the current selection
+     */
+    public void activate() {
+        Document doc = text.getDocument();
+        if (observed != doc) {
+            if (observed != null) {
+                observed.removeDocumentListener(docListener);
+            }
+            observed = doc;
+            doc.addDocumentListener(docListener);
+            docVersion++;
+        }
+        String sel = text.getSelectedText();
+        if (sel != null && !sel.isEmpty() && sel.indexOf('\n') < 0) {
+            findField.setText(sel);
+        }
+        findField.selectAll();
+        findField.requestFocusInWindow();
+        startSearch();
+    }
+
+    /**
+     * called by the note when the bar is hidden: stops tracking the document
+     * so that a hidden bar costs nothing per keystroke
+     */
+    public void deactivate() {
+        searchTimer.stop();
+        if (worker != null) {
+            worker.cancel(true);
+            worker = null;
+        }
+        if (observed != null) {
+            observed.removeDocumentListener(docListener);
+            observed = null;
+        }
+        matches = new int[0];
+        current = -1;
+    }
+
+    private void documentChanged() {
+        docVersion++;
+        if (findField.getDocument().getLength() > 0) {
+            searchTimer.restart();
+            updateStatus(); //the matches are stale until the search is done
+        }
+    }
+
+    /**
+     * takes a snapshot of the document and starts searching it in background
+     */
+    private void startSearch() {
+        searchTimer.stop();
+        if (worker != null) {
+            worker.cancel(true);
+            worker = null;
+        }
+        final String query = findField.getText();
+        if (query.isEmpty()) {
+            matches = new int[0];
+            matchLength = 0;
+            current = -1;
+            updateStatus();
+            return;
+        }
+        final Document doc = text.getDocument();
+        final Segment seg = new Segment();
+        try {
+            doc.getText(0, doc.getLength(), seg);
+        } catch (BadLocationException e) {
+            return;
+        }
+        //the segment may point straight into the document's internal buffer, copy it so the worker gets a stable snapshot
+        final char[] snapshot = Arrays.copyOfRange(seg.array, seg.offset, seg.offset + seg.count);
+        final boolean caseSensitive = matchCase.isSelected();
+        final long version = docVersion;
+        worker = new SwingWorker<int[], Void>() {
+            @Override
+            protected int[] doInBackground() {
+                return findAll(snapshot, query, caseSensitive, this);
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled() || worker != this) {
+                    return;
+                }
+                worker = null;
+                if (version != docVersion) {
+                    startSearch(); //document changed while searching, results are stale
+                    return;
+                }
+                try {
+                    matches = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    matches = new int[0];
+                }
+                matchesVersion = version;
+                matchLength = query.length();
+                current = -1;
+                if (matches.length > 0) {
+                    select(firstMatchAfter(text.getSelectionStart()));
+                } else {
+                    updateStatus();
+                }
+            }
+        };
+        worker.execute();
+        updateStatus();
+    }
+
+    /**
+     * @return true if the matches were computed on the current document and
+     * no search is running, so their offsets can be used to replace
+     */
+    private boolean matchesCurrent() {
+        return matchesVersion == docVersion && worker == null && !searchTimer.isRunning();
+    }
+
+    /**
+     * finds all non overlapping occurrences of a string in a char array
+     *
+     * @param s text to search
+     * @param query string to find
+     * @param caseSensitive true for exact matching
+     * @param w worker to check for cancellation
+     * @return sorted start offsets of the matches
+     */
+    private static int[] findAll(char[] s, String query, boolean caseSensitive, SwingWorker<?, ?> w) {
+        char[] q = query.toCharArray();
+        if (!caseSensitive) {
+            for (int i = 0; i < q.length; i++) {
+                q[i] = Character.toLowerCase(q[i]);
+            }
+        }
+        int[] ret = new int[16];
+        int n = 0;
+        int last = s.length - q.length;
+        char first = q[0];
+        for (int i = 0; i <= last; i++) {
+            if ((i & 0xFFFF) == 0 && w.isCancelled()) {
+                return new int[0];
+            }
+            char c = caseSensitive ? s[i] : Character.toLowerCase(s[i]);
+            if (c != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < q.length && (caseSensitive ? s[i + j] : Character.toLowerCase(s[i + j])) == q[j]) {
+                j++;
+            }
+            if (j == q.length) {
+                if (n == ret.length) {
+                    ret = Arrays.copyOf(ret, n * 2);
+                }
+                ret[n++] = i;
+                i += q.length - 1;
+            }
+        }
+        return Arrays.copyOf(ret, n);
+    }
+
+    private int firstMatchAfter(int pos) {
+        int i = Arrays.binarySearch(matches, pos);
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return i >= matches.length ? 0 : i;
+    }
+
+    /**
+     * selects the i-th match in the note, wrapping around at both ends
+     */
+    private void select(int i) {
+        if (matches.length == 0) {
+            current = -1;
+            updateStatus();
+            return;
+        }
+        current = (i % matches.length + matches.length) % matches.length;
+        text.select(matches[current], matches[current] + matchLength);
+        text.getCaret().setSelectionVisible(true);
+        updateStatus();
+    }
+
+    private void updateStatus() {
+        if (findField.getText().isEmpty()) {
+            status.setText("");
+        } else if (matches.length == 0) {
+            status.setText(locBundle.getString("FIND_NO_MATCHES"));
+        } else {
+            status.setText((current + 1) + "/" + matches.length);
+        }
+        boolean any = matches.length > 0;
+        prev.setEnabled(any);
+        next.setEnabled(any);
+        replace.setEnabled(any && matchesCurrent()); //disabled until the search started by a change is done
+        replaceAll.setEnabled(any && matchesCurrent());
+    }
+
+    private void replaceCurrent() {
+        if (!matchesCurrent() || matches.length == 0) {
+            return; //a search is pending, replace is enabled again when it's done
+        }
+        int i = Arrays.binarySearch(matches, text.getSelectionStart());
+        if (i < 0 || text.getSelectionEnd() != matches[i] + matchLength) {
+            select(firstMatchAfter(text.getSelectionStart())); //selection isn't on a match, show the next one first
+            return;
+        }
+        current = i;
+        text.replaceSelection(replaceField.getText());
+        //the search restarted by the document listener will select the next match after the caret
+    }
+
+    /**
+     * replaces every match at once as a single undoable edit. The view and the
+     * document listeners are detached from the document for the duration (see
+     * Note.applyBulkEdit), so the replacements don't cause one relayout and
+     * one round of notifications each. Each match is replaced separately to
+     * keep its formatting.
+     */
+    private void replaceAll() {
+        if (!matchesCurrent() || matches.length == 0) {
+            return;
+        }
+        final int[] m = matches;
+        final int len = matchLength;
+        final String replacement = replaceField.getText();
+        final StyledDocument doc = text.getStyledDocument();
+        int end = m[m.length - 1] + (m.length - 1) * (replacement.length() - len) + replacement.length(); //end of the last replacement
+        note.applyBulkEdit(() -> {
+            try {
+                //walk backwards so that earlier offsets stay valid
+                for (int i = m.length - 1; i >= 0; i--) {
+                    ((AbstractDocument) doc).replace(m[i], len, replacement, doc.getCharacterElement(m[i]).getAttributes().copyAttributes());
+                }
+            } catch (BadLocationException e) {
+                //can't happen, the matches were computed on this version of the document
+            }
+        }, m[0], end);
+        text.setCaretPosition(Math.min(m[0] + replacement.length(), text.getDocument().getLength()));
+    }
+}
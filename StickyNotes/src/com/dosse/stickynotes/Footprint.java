@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.awt.KeyboardFocusManager;
+import javax.swing.SwingUtilities;
+
+/**
+ * Gives memory back when the app is idle, instead of forcing a full GC every
+ * few minutes, which could happen while someone is typing.
+ *
+ * When nothing has changed for a while and none of our windows is active,
+ * trim() compacts the documents of the idle notes (see Note.compact), drops
+ * the cached images of the notes (see NoteChrome), and then runs a full GC.
+ * With the heap settings of the launcher (serial GC, low free ratios), the
+ * GC also gives the free heap back to the system. Hibernated notes already
+ * keep only their compressed text.
+ */
+final class Footprint {
+
+    private Footprint() {
+    }
+
+    /**
+     * trims the memory if the app is idle. Called on the background thread.
+     *
+     * @param idleMs notes that were modified less than this many milliseconds
+     * ago are left alone
+     * @return false if one of our windows is active, so the user may still be
+     * doing something, and nothing was done
+     */
+    static boolean trimIfIdle(long idleMs) throws Exception {
+        return trim(idleMs, true);
+    }
+
+    /**
+     * trims the memory, see above. Must not be called on the EDT.
+     *
+     * @param idleMs notes that were modified less than this many milliseconds
+     * ago are left alone
+     * @param onlyIfInactive if true, nothing is done when one of our windows
+     * is active
+     * @return false if nothing was done
+     */
+    static boolean trim(final long idleMs, final boolean onlyIfInactive) throws Exception {
+        final boolean[] active = new boolean[1];
+        SwingUtilities.invokeAndWait(() -> {
+            active[0] = onlyIfInactive && KeyboardFocusManager.getCurrentKeyboardFocusManager().getActiveWindow() != null;
+            if (active[0]) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            for (Note n : Main.getNotes()) {
+                if (now - n.getLastModified() > idleMs) {
+                    n.compact();
+                }
+            }
+            NoteChrome.clearCache(); //painted again the next time they're needed
+        });
+        if (active[0]) {
+            return false;
+        }
+        System.gc();
+        return true;
+    }
+}
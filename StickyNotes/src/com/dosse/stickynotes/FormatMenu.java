@@ -1,9 +1,13 @@
 package com.dosse.stickynotes;
 
 import javax.swing.*;
+import javax.swing.event.PopupMenuEvent;
+import javax.swing.event.PopupMenuListener;
 import javax.swing.text.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ResourceBundle;
 
 /**
@@ -12,8 +16,13 @@ import java.util.ResourceBundle;
  */
 public class FormatMenu extends JPopupMenu {
     
-    private final JTextPane textPane;
+    private static FormatMenu shared = null; //one menu for all the notes, created the first time it's shown
+    private JTextPane textPane; //text pane the menu was last shown for, released when the menu is closed
     private Color noteColor;
+    private Color menuBg, hoverBg, borderColor; //derived from noteColor by applyTheme, read by the hover listeners when they fire
+    private final List<JComponent> themedItems = new ArrayList<>(); //menu items, recolored on theme change instead of being rebuilt
+    private final List<JSeparator> themedSeparators = new ArrayList<>();
+    private final List<JPopupMenu> themedPopups = new ArrayList<>(); //popups of the submenus
     private static final ResourceBundle locBundle = ResourceBundle.getBundle("com/dosse/stickynotes/locale/locale");
     
     // Compact sizing
@@ -23,29 +32,98 @@ public class FormatMenu extends JPopupMenu {
     private static final Font ICON_FONT = new Font("Segoe UI", Font.BOLD, 12);
     private static final Font FORMAT_FONT = new Font("Segoe UI", Font.BOLD, 12);
     
-    public FormatMenu(JTextPane textPane, Color noteColor) {
+    /**
+     * Shows the format menu for a text pane. The menu is shared by all notes
+     * and rebound to the text pane every time it's shown, since only one popup
+     * can be open at a time.
+     */
+    public static void showFor(JTextPane textPane, Color noteColor, Component invoker, int x, int y) {
+        Profiling.PopupMenu event = new Profiling.PopupMenu();
+        event.begin();
+        if (shared == null) {
+            shared = new FormatMenu(textPane, noteColor);
+        } else {
+            shared.textPane = textPane;
+            if (!noteColor.equals(shared.noteColor)) {
+                shared.updateTheme(noteColor);
+            }
+        }
+        shared.show(invoker, x, y);
+        event.end();
+        if (event.shouldCommit()) {
+            event.menu = "format";
+            event.commit();
+        }
+    }
+    
+    private FormatMenu(JTextPane textPane, Color noteColor) {
         this.textPane = textPane;
         this.noteColor = noteColor;
         
         applyTheme();
         buildMenu();
+        addPopupMenuListener(new PopupMenuListener() {
+            @Override
+            public void popupMenuWillBecomeVisible(PopupMenuEvent e) {
+            }
+            
+            @Override
+            public void popupMenuWillBecomeInvisible(PopupMenuEvent e) {
+                // Items run their action after the menu is hidden, so the text pane is released after that
+                SwingUtilities.invokeLater(FormatMenu.this::release);
+            }
+            
+            @Override
+            public void popupMenuCanceled(PopupMenuEvent e) {
+            }
+        });
     }
     
+    /**
+     * Drops the references to the text pane the menu was shown for, so that
+     * the shared menu doesn't keep a deleted or hibernated note alive.
+     */
+    private void release() {
+        if (isVisible()) {
+            return; // Shown again in the meantime
+        }
+        textPane = null;
+        setInvoker(null);
+    }
+    
+    /**
+     * Recolors the menu for a different note color. The existing items are
+     * kept, only their colors change.
+     */
     public void updateTheme(Color noteColor) {
         this.noteColor = noteColor;
-        removeAll();
         applyTheme();
-        buildMenu();
+        for (JComponent c : themedItems) {
+            c.setBackground(menuBg);
+        }
+        for (JSeparator sep : themedSeparators) {
+            sep.setForeground(borderColor);
+            sep.setBackground(borderColor);
+        }
+        for (JPopupMenu p : themedPopups) {
+            p.setBackground(menuBg);
+            p.setBorder(BorderFactory.createLineBorder(borderColor, 1));
+        }
     }
     
     private void applyTheme() {
         // Darken the note color for menu background
-        Color menuBg = new Color(
+        menuBg = new Color(
             Math.max(0, noteColor.getRed() - 30),
             Math.max(0, noteColor.getGreen() - 30),
             Math.max(0, noteColor.getBlue() - 30)
         );
-        Color borderColor = new Color(
+        hoverBg = new Color(
+            Math.max(0, noteColor.getRed() - 15),
+            Math.max(0, noteColor.getGreen() - 15),
+            Math.max(0, noteColor.getBlue() - 15)
+        );
+        borderColor = new Color(
             Math.max(0, noteColor.getRed() - 50),
             Math.max(0, noteColor.getGreen() - 50),
             Math.max(0, noteColor.getBlue() - 50)
@@ -91,6 +169,7 @@ public class FormatMenu extends JPopupMenu {
         
         addCompactSeparator();
         
+        add(createCompactMenuItem(locBundle.getString("MENU_FIND"), this::find));
         add(createCompactMenuItem(locBundle.getString("MENU_SELECT_ALL"), this::selectAll));
     }
     
@@ -166,18 +245,8 @@ public class FormatMenu extends JPopupMenu {
     }
     
     private JMenuItem createCompactMenuItem(String text, Runnable action) {
-        Color menuBg = new Color(
-            Math.max(0, noteColor.getRed() - 30),
-            Math.max(0, noteColor.getGreen() - 30),
-            Math.max(0, noteColor.getBlue() - 30)
-        );
-        Color hoverBg = new Color(
-            Math.max(0, noteColor.getRed() - 15),
-            Math.max(0, noteColor.getGreen() - 15),
-            Math.max(0, noteColor.getBlue() - 15)
-        );
-        
         JMenuItem item = new JMenuItem(text);
+        themedItems.add(item);
         item.setFont(MENU_FONT);
         item.setForeground(Color.WHITE);
         item.setBackground(menuBg);
@@ -204,23 +273,9 @@ public class FormatMenu extends JPopupMenu {
     }
     
     private JMenu createCompactMenu(String text) {
-        Color menuBg = new Color(
-            Math.max(0, noteColor.getRed() - 30),
-            Math.max(0, noteColor.getGreen() - 30),
-            Math.max(0, noteColor.getBlue() - 30)
-        );
-        Color hoverBg = new Color(
-            Math.max(0, noteColor.getRed() - 15),
-            Math.max(0, noteColor.getGreen() - 15),
-            Math.max(0, noteColor.getBlue() - 15)
-        );
-        Color borderColor = new Color(
-            Math.max(0, noteColor.getRed() - 50),
-            Math.max(0, noteColor.getGreen() - 50),
-            Math.max(0, noteColor.getBlue() - 50)
-        );
-        
         JMenu menu = new JMenu(text);
+        themedItems.add(menu);
+        themedPopups.add(menu.getPopupMenu());
         menu.setFont(MENU_FONT);
         menu.setForeground(Color.WHITE);
         menu.setBackground(menuBg);
@@ -246,18 +301,8 @@ public class FormatMenu extends JPopupMenu {
     }
     
     private JMenuItem createSizeItem(int size) {
-        Color menuBg = new Color(
-            Math.max(0, noteColor.getRed() - 30),
-            Math.max(0, noteColor.getGreen() - 30),
-            Math.max(0, noteColor.getBlue() - 30)
-        );
-        Color hoverBg = new Color(
-            Math.max(0, noteColor.getRed() - 15),
-            Math.max(0, noteColor.getGreen() - 15),
-            Math.max(0, noteColor.getBlue() - 15)
-        );
-        
         JMenuItem item = new JMenuItem(size + " pt");
+        themedItems.add(item);
         item.setFont(MENU_FONT);
         item.setForeground(Color.WHITE);
         item.setBackground(menuBg);
@@ -284,12 +329,8 @@ public class FormatMenu extends JPopupMenu {
     }
     
     private void addCompactSeparator() {
-        Color borderColor = new Color(
-            Math.max(0, noteColor.getRed() - 50),
-            Math.max(0, noteColor.getGreen() - 50),
-            Math.max(0, noteColor.getBlue() - 50)
-        );
         JSeparator sep = new JSeparator();
+        themedSeparators.add(sep);
         sep.setForeground(borderColor);
         sep.setBackground(borderColor);
         sep.setPreferredSize(new Dimension(0, 1));
@@ -401,4 +442,11 @@ public class FormatMenu extends JPopupMenu {
     private void selectAll() {
         textPane.selectAll();
     }
+    
+    private void find() {
+        Window w = SwingUtilities.getWindowAncestor(textPane);
+        if (w instanceof Note) {
+            ((Note) w).showFindBar();
+        }
+    }
 }
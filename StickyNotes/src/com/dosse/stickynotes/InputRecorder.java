@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.awt.AWTEvent;
+import java.awt.Component;
+import java.awt.Point;
+import java.awt.Toolkit;
+import java.awt.Window;
+import java.awt.event.AWTEventListener;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import javax.swing.SwingUtilities;
+
+/**
+ * Records the keyboard and mouse input of a session, so that it can be
+ * replayed later against the same notes (see TraceReplay in the benchmarks)
+ * to reproduce performance problems and compare latencies before and after a
+ * change.
+ *
+ * Enabled with the -record flag. When recording starts, the storage is copied
+ * to trace-TIMESTAMP.dat in the storage folder, and the events are written to
+ * trace-TIMESTAMP.txt next to it, until the app is closed.
+ *
+ * The trace starts with a line "# notebot-trace 1 SCALE", then there's one
+ * line per event, with these fields separated by spaces:
+ * <ul>
+ * <li>time since the start of the recording, in microseconds</li>
+ * <li>class name of the window that received the event</li>
+ * <li>id of the note that is (or owns) that window, -1 if there's none. Notes
+ * are numbered in the order of the storage, notes created later are numbered
+ * when they receive their first event.</li>
+ * <li>text length of that note, 0 if there's none</li>
+ * <li>event id (MouseEvent.MOUSE_PRESSED...)</li>
+ * <li>x and y relative to the window, and modifiersEx</li>
+ * <li>for mouse events: button, click count, popup trigger (0 or 1), and for
+ * wheel events scroll type, scroll amount and wheel rotation</li>
+ * <li>for key events: key code, key char as a number and key location</li>
+ * </ul>
+ *
+ * Coordinates are relative to the window, so events can be posted to the
+ * window and Swing sends them to the same component, like it does with real
+ * input. For the same reason, enter and exit events of components are not
+ * recorded, Swing creates them again.
+ *
+ * Events are written from the EDT through a large buffer, so recording costs
+ * little more than formatting a line per event.
+ */
+final class InputRecorder implements AWTEventListener {
+
+    static final String HEADER = "# notebot-trace 1";
+    private static final long MASK = AWTEvent.KEY_EVENT_MASK | AWTEvent.MOUSE_EVENT_MASK | AWTEvent.MOUSE_MOTION_EVENT_MASK | AWTEvent.MOUSE_WHEEL_EVENT_MASK;
+
+    private final Writer out;
+    private final long start = System.nanoTime();
+    private final IdentityHashMap<Note, Integer> ids = new IdentityHashMap<>();
+    private final StringBuilder line = new StringBuilder(128);
+
+    private InputRecorder(Writer out) {
+        this.out = out;
+        for (Note n : Main.getNotes()) { //same order as the storage
+            ids.put(n, ids.size());
+        }
+    }
+
+    /**
+     * copies the storage and starts recording. Must be called after the
+     * notes are loaded and saved, errors are ignored.
+     */
+    static void start() {
+        try {
+            String name = "trace-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+            File dir = Main.getStorageDir();
+            Files.copy(new File(dir, "sticky.dat").toPath(), new File(dir, name + ".dat").toPath(), StandardCopyOption.REPLACE_EXISTING);
+            final Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(dir, name + ".txt")), StandardCharsets.UTF_8), 1 << 16);
+            w.write(HEADER + " " + Main.SCALE + "\n");
+            final InputRecorder r = new InputRecorder(w);
+            SwingUtilities.invokeAndWait(() -> Toolkit.getDefaultToolkit().addAWTEventListener(r, MASK));
+            Runtime.getRuntime().addShutdownHook(new Thread() {
+                @Override
+                public void run() {
+                    synchronized (r) {
+                        try {
+                            w.close();
+                        } catch (IOException e) {
+                        }
+                    }
+                }
+            });
+        } catch (Throwable t) {
+            System.err.println("Can't record input: " + t);
+        }
+    }
+
+    /**
+     * @return the note that is or owns the window, null if there's none
+     */
+    static Note noteOf(Window w) {
+        while (w != null && !(w instanceof Note)) {
+            w = w.getOwner();
+        }
+        return (Note) w;
+    }
+
+    @Override
+    public synchronized void eventDispatched(AWTEvent e) {
+        if (!(e instanceof InputEvent) || !(e.getSource() instanceof Component)) {
+            return;
+        }
+        Component c = (Component) e.getSource();
+        Window w = c instanceof Window ? (Window) c : SwingUtilities.getWindowAncestor(c);
+        if (w == null) {
+            return;
+        }
+        int id = e.getID();
+        if ((id == MouseEvent.MOUSE_ENTERED || id == MouseEvent.MOUSE_EXITED) && c != w) {
+            return; //created by Swing when the mouse moves
+        }
+        Note n = noteOf(w);
+        Integer noteId = -1;
+        if (n != null) {
+            noteId = ids.get(n);
+            if (noteId == null) {
+                noteId = ids.size();
+                ids.put(n, noteId);
+            }
+        }
+        line.setLength(0);
+        line.append((System.nanoTime() - start) / 1000).append(' ').append(w.getClass().getName()).append(' ').append(noteId).append(' ').append(n == null ? 0 : n.getTextLength()).append(' ').append(id);
+        if (e instanceof MouseEvent) {
+            MouseEvent m = (MouseEvent) e;
+            Point p = SwingUtilities.convertPoint(c, m.getPoint(), w);
+            line.append(' ').append(p.x).append(' ').append(p.y).append(' ').append(m.getModifiersEx()).append(' ').append(m.getButton()).append(' ').append(m.getClickCount()).append(' ').append(m.isPopupTrigger() ? 1 : 0);
+            if (m instanceof MouseWheelEvent) {
+                MouseWheelEvent mw = (MouseWheelEvent) m;
+                line.append(' ').append(mw.getScrollType()).append(' ').append(mw.getScrollAmount()).append(' ').append(mw.getWheelRotation());
+            }
+        } else if (e instanceof KeyEvent) {
+            KeyEvent k = (KeyEvent) e;
+            line.append(" 0 0 ").append(k.getModifiersEx()).append(' ').append(k.getKeyCode()).append(' ').append((int) k.getKeyChar()).append(' ').append(k.getKeyLocation());
+        } else {
+            return;
+        }
+        try {
+            out.append(line).append('\n');
+        } catch (IOException ex) {
+            System.err.println("Can't record input, the trace stops here: " + ex);
+            Toolkit.getDefaultToolkit().removeAWTEventListener(this);
+            try {
+                out.close();
+            } catch (IOException ex2) {
+            }
+        }
+    }
+}
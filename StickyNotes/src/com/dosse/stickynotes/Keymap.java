@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.awt.Component;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.ActionMap;
+import javax.swing.InputMap;
+import javax.swing.JComponent;
+import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
+import javax.swing.text.JTextComponent;
+import javax.swing.text.StyleConstants;
+
+/**
+ * Keyboard shortcuts of the notes.
+ *
+ * There's one table from keystroke to action for all the notes, and one
+ * instance of each action, which works on the note that the event came from.
+ * Each text pane gets an InputMap and an ActionMap that look into these tables
+ * before falling back to the ones of the look and feel, so installing the
+ * shortcuts on a note doesn't copy anything.
+ *
+ * Shortcuts can be changed in config.properties with one line per action,
+ * like key.bold=ctrl B, meta B (see KeyStroke.getKeyStroke for the format).
+ * An empty value removes the shortcut. A keystroke with ctrl (or meta) and
+ * other modifiers that isn't bound itself triggers the shortcut bound to the
+ * same key with ctrl (or meta) alone, so ctrl shift B is also bold, like with
+ * the key listeners the notes used to have.
+ */
+final class Keymap {
+
+    private static final LinkedHashMap<String, String> DEFAULTS = new LinkedHashMap<>(); //action name -> default keystrokes, ctrl for windows and linux, meta for macOS
+    private static final HashMap<String, Action> ACTIONS = new HashMap<>();
+    private static final HashMap<KeyStroke, String> BINDINGS = new HashMap<>();
+
+    static {
+        action("bold", "ctrl B, meta B", (Note n) -> n.toggleStyle(StyleConstants.Bold));
+        action("italic", "ctrl I, meta I", (Note n) -> n.toggleStyle(StyleConstants.Italic));
+        action("underline", "ctrl U, meta U", (Note n) -> n.toggleStyle(StyleConstants.Underline));
+        action("zoom-in", "ctrl ADD, meta ADD", (Note n) -> n.setTextScale(n.getTextScale() + Note.TEXT_SCALE_STEP));
+        action("zoom-out", "ctrl SUBTRACT, meta SUBTRACT", (Note n) -> n.setTextScale(n.getTextScale() - Note.TEXT_SCALE_STEP));
+        action("zoom-reset", "ctrl NUMPAD0, meta NUMPAD0", (Note n) -> n.setTextScale(1));
+        action("new-note", "ctrl N, meta N", (Note n) -> n.newNoteNextTo());
+        action("delete-note", "ctrl D, meta D", (Note n) -> Main.delete(n));
+        action("find", "ctrl F, meta F", (Note n) -> n.showFindBar());
+        action("close-find", "ESCAPE", (Note n) -> n.hideFindBar(), (Note n) -> n.isFindBarVisible()); //otherwise escape goes on to the text pane
+        action("stow", "ctrl W, meta W", (Note n) -> Main.stow(n));
+        action("select-all", "ctrl A, meta A", (Note n) -> n.selectAll());
+        action("undo", "ctrl Z, meta Z", (Note n) -> n.undoEdit());
+        action("redo", "ctrl Y, meta Y", (Note n) -> n.redoEdit());
+        load(Main.getConfig());
+    }
+
+    private Keymap() {
+    }
+
+    private static void action(String name, String keys, Consumer<Note> body) {
+        action(name, keys, body, null);
+    }
+
+    private static void action(final String name, String keys, final Consumer<Note> body, final Predicate<Note> condition) {
+        DEFAULTS.put(name, keys);
+        ACTIONS.put(name, new AbstractAction(name) {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                Note n = noteOf(e.getSource());
+                if (n != null) {
+                    body.accept(n);
+                }
+            }
+
+            @Override
+            public boolean accept(Object sender) {
+                if (condition == null) {
+                    return true;
+                }
+                Note n = noteOf(sender);
+                return n != null && condition.test(n);
+            }
+        });
+    }
+
+    private static Note noteOf(Object source) {
+        if (!(source instanceof Component)) {
+            return null;
+        }
+        Object w = SwingUtilities.getWindowAncestor((Component) source);
+        return w instanceof Note ? (Note) w : null;
+    }
+
+    /**
+     * builds the keystroke table from the defaults and the key.* entries of
+     * the configuration
+     *
+     * @param config configuration, can be empty
+     */
+    static synchronized void load(Properties config) {
+        BINDINGS.clear();
+        for (Map.Entry<String, String> e : DEFAULTS.entrySet()) {
+            String keys = config.getProperty("key." + e.getKey(), e.getValue());
+            for (String k : keys.split(",")) {
+                KeyStroke ks = KeyStroke.getKeyStroke(k.trim());
+                if (ks != null) { //invalid keystrokes are ignored
+                    BINDINGS.put(ks, e.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * installs the shortcuts on the text pane of a note
+     *
+     * @param text text pane
+     */
+    static void install(JTextComponent text) {
+        InputMap im = new SharedInputMap();
+        im.setParent(text.getInputMap(JComponent.WHEN_FOCUSED).getParent());
+        text.setInputMap(JComponent.WHEN_FOCUSED, im);
+        ActionMap am = new SharedActionMap();
+        am.setParent(text.getActionMap().getParent());
+        text.setActionMap(am);
+    }
+
+    /**
+     * looks up the shared keystroke table first, then the look and feel
+     */
+    private static final class SharedInputMap extends InputMap {
+
+        @Override
+        public Object get(KeyStroke keyStroke) {
+            Object a = BINDINGS.get(keyStroke);
+            if (a == null) {
+                KeyStroke loose = loose(keyStroke);
+                if (loose != null) {
+                    a = BINDINGS.get(loose);
+                }
+            }
+            return a != null ? a : super.get(keyStroke);
+        }
+    }
+
+    /**
+     * @param ks keystroke
+     * @return the same keystroke with only ctrl, or only meta if ctrl isn't
+     * pressed, null if that's the keystroke itself or neither is pressed
+     */
+    private static KeyStroke loose(KeyStroke ks) {
+        int m = ks.getModifiers();
+        int only = (m & InputEvent.CTRL_DOWN_MASK) != 0 ? InputEvent.CTRL_DOWN_MASK : (m & InputEvent.META_DOWN_MASK) != 0 ? InputEvent.META_DOWN_MASK : 0;
+        int others = (InputEvent.SHIFT_DOWN_MASK | InputEvent.ALT_DOWN_MASK | InputEvent.ALT_GRAPH_DOWN_MASK | InputEvent.CTRL_DOWN_MASK | InputEvent.META_DOWN_MASK) & ~only;
+        if (only == 0 || (m & others) == 0) {
+            return null;
+        }
+        return KeyStroke.getKeyStroke(ks.getKeyCode(), only, ks.isOnKeyRelease());
+    }
+
+    /**
+     * looks up the shared actions first, then the look and feel
+     */
+    private static final class SharedActionMap extends ActionMap {
+
+        @Override
+        public Action get(Object key) {
+            Action a = ACTIONS.get(key);
+            return a != null ? a : super.get(key);
+        }
+    }
+}
@@ -30,30 +30,33 @@ package com.dosse.stickynotes;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
-import java.awt.GraphicsDevice;
 import java.awt.GraphicsEnvironment;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.Toolkit;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.RandomAccessFile;
-import static java.lang.Thread.sleep;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 import javax.swing.plaf.ColorUIResource;
 import javax.swing.plaf.FontUIResource;
@@ -68,13 +71,15 @@ import javax.swing.plaf.metal.MetalTheme;
  */
 public class Main {
 
-    private static final String STORAGE_PATH, BACKUP_PATH, BACKUP2_PATH, LOCK_PATH, CONFIG_PATH; //these variables will contain the paths to the files used by the application, initialized below
+    private static final String STORAGE_DIR, STORAGE_PATH, BACKUP_PATH, BACKUP2_PATH, LOCK_PATH, CONFIG_PATH; //these variables will contain the paths to the files used by the application, initialized below
 
     static {
         String os = System.getProperty("os.name").toLowerCase();
         String home = "";
         try {
-            if (os.startsWith("win")) {
+            if (System.getProperty("notebot.home") != null) { //custom storage folder, used by the test harnesses so that they don't touch the real notes
+                home = new File(System.getProperty("notebot.home")).getAbsolutePath() + File.separator;
+            } else if (os.startsWith("win")) {
                 if (os.contains("xp")) { //on windows xp, we use %appdata%\NoteBot
                     home = System.getenv("APPDATA") + "\\NoteBot\\";
                 } else { //on newer windows, we use %userprofile%\AppData\Local\NoteBot
@@ -99,6 +104,7 @@ public class Main {
             home = "";
             System.err.println("Warning: Could not create storage directory, using local folder: " + e.getMessage());
         }
+        STORAGE_DIR = home;
         STORAGE_PATH = home + "sticky.dat"; //main storage
         BACKUP_PATH = home + "sticky.dat.bak"; //backup in case main storage is corrupt
         BACKUP2_PATH = home + "sticky.dat.bak.2"; //temp path for previous backup while current one is being backed up
@@ -106,22 +112,51 @@ public class Main {
         CONFIG_PATH = home + "config.properties"; //stores user preferences like language
     }
 
-    private static final ArrayList<Note> notes = new ArrayList<Note>(); //currently open notes
+    private static final NoteRegistry notes = new NoteRegistry(); //currently open notes, in z-order. never locked, see NoteRegistry
     private static boolean noAutoCreate = false; //if set to true, an empty note will not be created if the app is started on an empty storage. enabled by the -autostartup parameter
-    private static final ScheduledExecutorService SAVE_SCHEDULER = Executors.newSingleThreadScheduledExecutor();
-    private static ScheduledFuture<?> pendingSave = null;
+    private static ScheduledFuture<?> pendingSave = null; //guarded by PENDING_LOCK, which is only held for a moment so that the EDT can always request a save
+    private static final Object PENDING_LOCK = new Object();
+    private static final ReentrantLock SAVE_LOCK = new ReentrantLock(); //one save at a time, held during disk I/O
     private static final long SAVE_DEBOUNCE_MS = 1200;
+    private static final long AUTOSAVE_MS = 60000;
+    private static final long IDLE_MS = 300000; //periodic work is paused after this long without changes
+    private static volatile long lastChange = System.currentTimeMillis(); //last time a save was requested
+    private static final AtomicLong changes = new AtomicLong(); //incremented by changed(), so that a save can tell that nothing happened without serializing the notes
+    private static long savedChecksum = -1, savedSize = -1, savedChanges = -1; //checksum and size of what was last written to the storage, and changes at that time. guarded by SAVE_LOCK
 
-    private static void applyLanguageFromConfig() {
-        try {
+    private static Properties config = null;
+
+    /**
+     * @return the folder where the notes and the configuration are stored
+     */
+    static File getStorageDir() {
+        return new File(STORAGE_DIR.isEmpty() ? "." : STORAGE_DIR);
+    }
+
+    /**
+     * reads config.properties the first time it's called
+     *
+     * @return user preferences, empty if there's no configuration file or it
+     * can't be read
+     */
+    static synchronized Properties getConfig() {
+        if (config == null) {
+            config = new Properties();
             File cfg = new File(CONFIG_PATH);
-            if (!cfg.exists()) {
-                return;
-            }
-            Properties p = new Properties();
-            try (FileInputStream fis = new FileInputStream(cfg)) {
-                p.load(fis);
+            if (cfg.exists()) {
+                try (FileInputStream fis = new FileInputStream(cfg)) {
+                    config.load(fis);
+                } catch (Throwable t) {
+                    config.clear();
+                }
             }
+        }
+        return config;
+    }
+
+    private static void applyLanguageFromConfig() {
+        try {
+            Properties p = getConfig();
             String lang = p.getProperty("lang", "").trim().toLowerCase(Locale.ROOT);
             Locale target;
             switch (lang) {
@@ -145,23 +180,44 @@ public class Main {
         }
     }
 
+    /**
+     * called when something that is saved changes: wakes up the periodic work
+     * if it was paused
+     */
+    static void changed() {
+        changes.incrementAndGet();
+        lastChange = System.currentTimeMillis();
+        Background.resume();
+    }
+
     public static void requestSave() {
-        synchronized (notes) {
-            if (pendingSave != null) {
-                pendingSave.cancel(false);
+        changed();
+        synchronized (PENDING_LOCK) {
+            if (pendingSave != null && pendingSave.cancel(false)) {
+                RuntimeStats.saveCoalesced(); //merged with the one that was waiting
             }
-            pendingSave = SAVE_SCHEDULER.schedule(Main::saveState, SAVE_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+            pendingSave = Background.schedule("save", () -> saveState(), SAVE_DEBOUNCE_MS);
         }
     }
 
     public static void flushSaves() {
-        synchronized (notes) {
+        flushSaves(false);
+    }
+
+    /**
+     * saves now, cancelling the pending save if there's one
+     *
+     * @param force if true, the storage is rewritten even if nothing changed
+     * @return true if the storage was written
+     */
+    static boolean flushSaves(boolean force) {
+        synchronized (PENDING_LOCK) {
             if (pendingSave != null) {
                 pendingSave.cancel(false);
                 pendingSave = null;
             }
-            saveState();
         }
+        return saveState(force);
     }
 
     /**
@@ -174,14 +230,64 @@ public class Main {
      * size (Dimension), the color scheme (Color[8]), the text (String).
      * Finally, a float for each note with the text scale for that note. This
      * data is written at the end to ensure compatibility with older versions of
-     * the program.
+     * the program. After the text scales, a String[] for each note with the
+     * #tags and [[links]] it contains (see NoteIndex), so that the index
+     * doesn't need to be rebuilt from the text when loading. Then, for each
+     * note, a Boolean that is true if the note is in the notebook instead of
+     * on the desktop, and a Long with the time of its last modification.
+     * Finally, for each note, a Map from screen fingerprint to the bounds
+     * (Rectangle) the note had the last time that arrangement of screens was
+     * used (see ScreenGeometry).
+     *
+     * Nothing is written if the storage already contains exactly these notes.
      *
      * errors are ignored.
      */
     public static void saveState() {
-        synchronized (notes) {
+        saveState(false);
+    }
+
+    /**
+     * saves the notes, see saveState()
+     *
+     * @param force if false, the storage is not touched when it already
+     * contains exactly these notes, so that idle autosaves don't wear the disk
+     * and don't replace the backup with an identical copy. If nothing called
+     * changed() since the last save, the notes aren't even serialized (which
+     * would inflate the hibernated ones). Otherwise they're serialized once
+     * into memory, and the buffer is only written if its checksum differs
+     * from what was last written.
+     *
+     * @return true if the storage was written
+     */
+    static boolean saveState(boolean force) {
+        if (!SAVE_LOCK.tryLock()) {
+            long w = System.nanoTime();
+            SAVE_LOCK.lock();
+            RuntimeStats.saveLockWaited(System.nanoTime() - w);
+        }
+        try {
+            Profiling.Save event = new Profiling.Save();
+            event.begin();
+            long t = System.nanoTime();
+            long c = changes.get(); //read before serializing, changes made in the meantime are saved the next time
+            if (!force && c == savedChanges && new File(STORAGE_PATH).length() == savedSize) {
+                RuntimeStats.saveSkipped();
+                return false;
+            }
             try {
+                ByteArrayOutputStream buf = new ByteArrayOutputStream(savedSize > 0 ? (int) savedSize + 4096 : 65536); //about the size of the last save, so that it rarely grows
+                writeState(buf);
+                long size = buf.size();
+                CheckedOutputStream sum = new CheckedOutputStream(OutputStream.nullOutputStream(), new CRC32());
+                buf.writeTo(sum);
+                long checksum = sum.getChecksum().getValue();
                 File st = new File(STORAGE_PATH);
+                if (!force && checksum == savedChecksum && size == savedSize && st.length() == size) {
+                    savedChanges = c;
+                    RuntimeStats.saveSkipped();
+                    return false;
+                }
                 File bk = new File(BACKUP_PATH);
                 File bkTemp = new File(BACKUP2_PATH);
                 if (bkTemp.exists()) {
@@ -197,27 +303,63 @@ public class Main {
                     bkTemp.delete();
                 }
                 st = new File(STORAGE_PATH);
-                try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(st))) {
-                    oos.writeObject(SCALE);
-                    oos.writeObject(notes.size());
-                    for (Note n : notes) {
-                        oos.writeObject(n.getPreferredLocation());
-                        oos.writeObject(n.getSize());
-                        oos.writeObject(n.getColorScheme());
-                        oos.writeObject(n.getText());
-                    }
-                    //text scales are written at the end of the file so that older versions of the program can still load this .dat file
-                    for (Note n : notes) {
-                        oos.writeObject(n.getTextScale());
-                    }
-                    oos.flush();
+                try (FileOutputStream fos = new FileOutputStream(st)) {
+                    buf.writeTo(fos);
+                }
+                savedChecksum = checksum;
+                savedSize = size;
+                savedChanges = c;
+                RuntimeStats.saveDone(System.nanoTime() - t, size);
+                event.end();
+                if (event.shouldCommit()) {
+                    event.notes = notes.size();
+                    event.bytes = size;
+                    event.commit();
                 }
+                return true;
             } catch (IOException e) {
                 System.err.println("Error saving notes: " + e.getMessage());
+                return false;
             }
+        } finally {
+            SAVE_LOCK.unlock();
         }
     }
 
+    /**
+     * serializes the notes in the format described in saveState()
+     *
+     * @param os stream, not closed
+     * @throws IOException if writing fails
+     */
+    private static void writeState(OutputStream os) throws IOException {
+        ObjectOutputStream oos = new ObjectOutputStream(os);
+        Note[] notes = Main.notes.snapshot(); //the same notes in every section, even if one is added or removed meanwhile
+        oos.writeObject(SCALE);
+        oos.writeObject(notes.length);
+        for (Note n : notes) {
+            oos.writeObject(n.getPreferredLocation());
+            oos.writeObject(n.getSize());
+            oos.writeObject(n.getColorScheme());
+            oos.writeObject(n.getText());
+        }
+        //text scales are written at the end of the file so that older versions of the program can still load this .dat file
+        for (Note n : notes) {
+            oos.writeObject(n.getTextScale());
+        }
+        for (Note n : notes) {
+            oos.writeObject(NoteIndex.getTokens(n));
+        }
+        for (Note n : notes) {
+            oos.writeObject(n.isStowed());
+            oos.writeObject(n.getLastModified());
+        }
+        for (Note n : notes) {
+            oos.writeObject(n.getLayouts());
+        }
+        oos.flush();
+    }
+
     /**
      * attempts to load the notes in the specified storage. notes loaded from
      * the file will also be adapted to the current screen DPI
@@ -230,58 +372,118 @@ public class Main {
      * does nothing
      */
     private static boolean attemptLoad(File f) {
-        synchronized (notes) {
-            if (!f.exists() || !f.canRead()) {
+        Profiling.Load event = new Profiling.Load();
+        event.begin();
+        boolean success = attemptLoadImpl(f);
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = f.getName();
+            event.bytes = f.length();
+            event.notes = success ? notes.size() : 0;
+            event.success = success;
+            event.commit();
+        }
+        return success;
+    }
+
+    /**
+     * see attemptLoad
+     */
+    private static boolean attemptLoadImpl(File f) {
+        if (!f.exists() || !f.canRead()) {
+            return false;
+        }
+        ArrayList<Note> loaded = new ArrayList<>(); //registered only when the whole file was read
+        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(f))) {
+            float savScale = (Float) (ois.readObject());
+            float scaleMul = SCALE / savScale;
+            int n = (Integer) (ois.readObject());
+            if (n == 0) {
+                if (!noAutoCreate) {
+                    Note note = new Note();
+                    note.setVisible(true);
+                    notes.add(note);
+                }
+                return true;
+            }
+            if (n < 0) {
                 return false;
             }
-            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(f))) {
-                float savScale = (Float) (ois.readObject());
-                float scaleMul = SCALE / savScale;
-                int n = (Integer) (ois.readObject());
-                if (n == 0) {
-                    if (!noAutoCreate) {
-                        Note note = new Note();
-                        note.setVisible(true);
-                        notes.add(note);
-                    }
-                    return true;
+            for (int i = 0; i < n; i++) {
+                Note note = new Note();
+                Point p = (Point) (ois.readObject());
+                note.setLocation(p);
+                Dimension d = (Dimension) (ois.readObject());
+                d.height *= scaleMul;
+                d.width *= scaleMul;
+                note.setSize(d);
+                note.setColorScheme((Color[]) (ois.readObject()));
+                note.setText((String) (ois.readObject()));
+                loaded.add(note);
+            }
+            try {
+                //attempt to load text scales. this will fail if we're loading a .dat file from a previous version
+                for (int i = 0; i < n; i++) {
+                    loaded.get(i).setTextScale((Float) (ois.readObject()));
                 }
-                if (n < 0) {
-                    return false;
+            } catch (Exception ignored) {
+                //older version compatibility - text scale not available
+            }
+            try {
+                //attempt to load the tag index. if it's not there, it's rebuilt from the text
+                for (int i = 0; i < n; i++) {
+                    NoteIndex.seed(loaded.get(i), (String[]) (ois.readObject()));
                 }
+            } catch (Exception ignored) {
+                //older version compatibility - tag index not available
+            }
+            try {
+                //attempt to load notebook state and modification times
                 for (int i = 0; i < n; i++) {
-                    Note note = new Note();
-                    Point p = (Point) (ois.readObject());
-                    note.setLocation(p);
-                    Dimension d = (Dimension) (ois.readObject());
-                    d.height *= scaleMul;
-                    d.width *= scaleMul;
-                    note.setSize(d);
-                    note.setColorScheme((Color[]) (ois.readObject()));
-                    note.setText((String) (ois.readObject()));
-                    notes.add(note);
+                    loaded.get(i).setStowed((Boolean) (ois.readObject()));
+                    loaded.get(i).setLastModified((Long) (ois.readObject()));
                 }
-                try {
-                    //attempt to load text scales. this will fail if we're loading a .dat file from a previous version
-                    for (int i = 0; i < n; i++) {
-                        notes.get(i).setTextScale((Float) (ois.readObject()));
+            } catch (Exception ignored) {
+                //older version compatibility - all notes are on the desktop
+            }
+            try {
+                //attempt to load where the notes were on each arrangement of screens
+                for (int i = 0; i < n; i++) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Rectangle> layouts = (Map<String, Rectangle>) (ois.readObject());
+                    if (scaleMul != 1) {
+                        for (Rectangle r : layouts.values()) {
+                            r.width = Math.round(r.width * scaleMul);
+                            r.height = Math.round(r.height * scaleMul);
+                        }
                     }
-                } catch (Exception ignored) {
-                    //older version compatibility - text scale not available
+                    loaded.get(i).setLayouts(layouts);
                 }
-                for (Note note : notes) {
+            } catch (Exception ignored) {
+                //older version compatibility - only the preferred location is known
+            }
+            String screens = ScreenGeometry.get().getFingerprint();
+            for (Note note : loaded) {
+                notes.add(note); //in the order of the file, so the z-order is the same
+            }
+            for (Note note : loaded) {
+                note.applyLayout(screens); //where it was the last time these screens were used, if they were
+                if (note.isStowed()) {
+                    note.hibernate(); //never shown, keep only the compressed text
+                } else {
                     note.setVisible(true);
                 }
-            } catch (Exception e) {
-                for (Note note : notes) {
-                    note.setVisible(false);
-                    note.dispose();
-                }
-                notes.clear();
-                return false;
             }
-            return true;
+        } catch (Exception e) {
+            for (Note note : loaded) {
+                notes.remove(note);
+                NoteIndex.remove(note);
+                note.setVisible(false);
+                note.dispose();
+            }
+            return false;
         }
+        return true;
     }
 
     /**
@@ -289,7 +491,7 @@ public class Main {
      *
      * @return true if loading was successful, false otherwise
      */
-    private static boolean loadState() {
+    static boolean loadState() {
         if (!attemptLoad(new File(STORAGE_PATH))) {
             if (!attemptLoad(new File(BACKUP_PATH))) {
                 if (!attemptLoad(new File(BACKUP2_PATH))) {
@@ -306,13 +508,12 @@ public class Main {
      * @return the newly created note
      */
     public static Note newNote() {
-        synchronized (notes) {
-            Note n = new Note();
-            n.setVisible(true);
-            notes.add(n);
-            requestSave();
-            return n;
-        }
+        Note n = new Note();
+        notes.add(n);
+        n.setVisible(true);
+        requestSave();
+        NotebookWindow.notesChanged();
+        return n;
     }
 
     /**
@@ -321,22 +522,151 @@ public class Main {
      * @param n note to be deleted
      */
     public static void delete(Note n) {
-        synchronized (notes) {
-            notes.remove(n);
-            n.setVisible(false);
-            n.dispose();
+        notes.remove(n);
+        NoteIndex.remove(n);
+        n.setVisible(false);
+        n.dispose();
+        requestSave();
+        if (notes.isEmpty()) {
+            System.exit(0);
+        }
+        NotebookWindow.notesChanged();
+        if (!NotebookWindow.isOpen() && !hasVisibleNotes()) {
+            NotebookWindow.open(); //only notes in the notebook are left
+        }
+    }
+
+    /**
+     * sends a note to the notebook: the window is disposed, releasing its
+     * native resources, but the note is kept and saved
+     *
+     * @param n note
+     */
+    public static void stow(Note n) {
+        if (n.isStowed()) {
+            return;
+        }
+        n.setStowed(true);
+        n.hibernate();
+        requestSave();
+        NotebookWindow.notesChanged();
+        if (!hasVisibleNotes()) {
+            NotebookWindow.open(); //don't leave the user without any window
+        }
+    }
+
+    /**
+     * hibernates the notes that can't be seen: the ones in the notebook and
+     * the ones that are completely outside of every screen. Off-screen notes
+     * are woken up when the screens change and they become visible again.
+     * Hibernating keeps only the plain text, so off-screen notes with
+     * formatting are left alone: the user never asked to put them away.
+     */
+    public static void hibernateIdleNotes() {
+        final ArrayList<Note> idle = new ArrayList<>();
+        for (Note n : notes.snapshot()) {
+            if (!n.isHibernated() && (n.isStowed() || !isOnScreen(n.getBounds()))) {
+                idle.add(n);
+            }
+        }
+        if (!idle.isEmpty()) {
+            SwingUtilities.invokeLater(() -> {
+                for (Note n : idle) {
+                    if (n.isStowed() || n.isPlainText()) {
+                        n.hibernate();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * called on the EDT when the screen layout changes: moves all the notes in
+     * one pass to where they were the last time this arrangement of screens
+     * was used (or to their preferred location, clamped to the new screens),
+     * and wakes up the ones that were hibernated while off-screen and are now
+     * visible
+     */
+    private static void onScreensChanged() {
+        String screens = ScreenGeometry.get().getFingerprint();
+        for (Note n : notes.snapshot()) {
+            n.applyLayout(screens); //where it was the last time these screens were used, or clamped to the new screens
+            if (n.isHibernated() && !n.isStowed() && isOnScreen(n.getBounds())) {
+                n.setVisible(true);
+            }
+        }
+    }
+
+    /**
+     * @param r a rectangle in screen coordinates
+     * @return true if at least part of r is inside one of the screens
+     */
+    public static boolean isOnScreen(Rectangle r) {
+        return ScreenGeometry.get().isOnScreen(r);
+    }
+
+    /**
+     * @return a copy of the list of notes, in z-order (topmost last)
+     */
+    public static ArrayList<Note> getNotes() {
+        return notes.toList();
+    }
+
+    /**
+     * @return true if at least one note is on the desktop
+     */
+    public static boolean hasVisibleNotes() {
+        for (Note n : notes.snapshot()) {
+            if (!n.isStowed()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * shows the specified note and brings it in front of the others
+     *
+     * @param n note
+     */
+    public static void show(Note n) {
+        if (n.isStowed()) {
+            n.setStowed(false);
             requestSave();
-            if (notes.isEmpty()) {
-                System.exit(0);
+            NotebookWindow.notesChanged();
+        }
+        if (!n.isVisible()) {
+            n.setVisible(true);
+        }
+        n.toFront();
+        n.requestFocus();
+    }
+
+    /**
+     * saves the notes if they changed and hibernates the ones that can't be
+     * seen. Run every minute on the background thread. When nothing has
+     * changed for a few minutes and the app is in the background, the memory
+     * is trimmed (see Footprint) and all the periodic work is paused until the
+     * next change (see requestSave), so that the app doesn't wake up for
+     * nothing.
+     */
+    private static void autosave() {
+        boolean written = flushSaves(false);
+        hibernateIdleNotes();
+        if (!written && System.currentTimeMillis() - lastChange > IDLE_MS) {
+            try {
+                if (Footprint.trimIfIdle(IDLE_MS)) {
+                    Background.pause();
+                }
+            } catch (Exception e) {
+                throw new RuntimeException(e); //reported by Background
             }
         }
     }
 
     public static void bringToFront(Note n) {
-        synchronized (notes) {
-            notes.remove(n);
-            notes.add(n);
-        }
+        notes.bringToFront(n);
+        changed(); //the z-order is saved
     }
 
     /**
@@ -361,45 +691,43 @@ public class Main {
     }
 
     public static Dimension getExtendedScreenResolution() {
-        //get screen resolution, also works with multiple screens
-        GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
-        GraphicsDevice[] screens = ge.getScreenDevices();
-        Dimension s = new Dimension(0, 0);
-        for (GraphicsDevice screen : screens) {
-            Rectangle r = screen.getDefaultConfiguration().getBounds();
-            r.width += r.x;
-            r.height += r.y;
-            if (r.width > s.width) {
-                s.width = r.width;
-            }
-            if (r.height > s.height) {
-                s.height = r.height;
-            }
-        }
-        return s;
+        //get screen resolution, also works with multiple screens. cached, see ScreenGeometry
+        return ScreenGeometry.get().getExtent();
     }
 
     /**
      * loads font from classpath
      *
      * @param pathInClasspath path in classpath
-     * @return Font or null if it doesn't exist
+     * @return Font, or the logical sans serif font if it doesn't exist or
+     * can't be loaded
      */
     private static Font loadFont(String pathInClasspath) {
         try {
             return Font.createFont(Font.TRUETYPE_FONT, Main.class.getResourceAsStream(pathInClasspath));
         } catch (Throwable ex) {
-            return null;
+            return new Font(Font.SANS_SERIF, Font.PLAIN, 12);
         }
     }
 
     /**
      * calculates SCALE based on screen DPI. target DPI is 80, so if DPI=80,
-     * SCALE=1. Min DPI is 64
+     * SCALE=1. Min DPI is 64. The notebot.scale system property overrides it,
+     * and without a screen (headless, as in benchmarks) it's 1.
      *
      * @return scale
      */
     private static float calculateScale() {
+        String override = System.getProperty("notebot.scale");
+        if (override != null) {
+            try {
+                return Math.max(0.5f, Float.parseFloat(override.trim()));
+            } catch (NumberFormatException e) {
+            }
+        }
+        if (GraphicsEnvironment.isHeadless()) {
+            return 1;
+        }
         float dpi = (float) Toolkit.getDefaultToolkit().getScreenResolution();
         return (dpi < 64 ? 64 : dpi) / 80f;
     }
@@ -426,8 +754,18 @@ public class Main {
         if (alreadyRunning()) { //if the app is already running, it terminates the current instance
             System.exit(1);
         }
-        if (args.length == 1 && args[0].equalsIgnoreCase("-autostartup")) { //if the app is started with the -autostartup flag, it doesn't create an empty note (on windows the app is run when the system starts and it would be silly to create a new note when the system boots and there are no saved notes)
-            noAutoCreate = true;
+        boolean profile = false, record = false;
+        boolean watchdog = Boolean.parseBoolean(getConfig().getProperty("watchdog", "false").trim());
+        for (String arg : args) {
+            if (arg.equalsIgnoreCase("-autostartup")) { //if the app is started with the -autostartup flag, it doesn't create an empty note (on windows the app is run when the system starts and it would be silly to create a new note when the system boots and there are no saved notes)
+                noAutoCreate = true;
+            } else if (arg.equalsIgnoreCase("-watchdog")) { //logs what the EDT is doing when it stops responding, see EdtWatchdog
+                watchdog = true;
+            } else if (arg.equalsIgnoreCase("-profile")) { //records a flight recording into the storage folder, see Profiling
+                profile = true;
+            } else if (arg.equalsIgnoreCase("-record")) { //records the input into a trace that can be replayed, see InputRecorder
+                record = true;
+            }
         }
         //apply swing MetalTheme, scroll down and ignore
         try {
@@ -512,13 +850,23 @@ public class Main {
         Runtime.getRuntime().addShutdownHook(new Thread() {
             @Override
             public void run() {
-                synchronized (notes) {
-                    if (!notes.isEmpty()) {
-                        flushSaves();
-                    }
+                Background.shutdown(5000); //lets a save that's running finish and stops the periodic work, so the last save is the one below
+                if (!notes.isEmpty()) {
+                    flushSaves();
                 }
             }
         });
+        if (profile) {
+            Profiling.startRecording();
+        }
+        if (watchdog) { //started before loading, so that slow loads are caught too
+            long threshold = 100;
+            try {
+                threshold = Long.parseLong(getConfig().getProperty("watchdog.threshold", "100").trim());
+            } catch (NumberFormatException e) {
+            }
+            EdtWatchdog.start(threshold);
+        }
         //attempt to load from storage
         if (!loadState()) {
             if (!noAutoCreate) {
@@ -530,72 +878,17 @@ public class Main {
         if (notes.isEmpty()) { //if there are no saved notes and none were created automatically (-autostartup flag), close the app
             System.exit(0);
         }
-        //this thread autosaves the notes every 60 seconds
-        Thread autosaveThread = new Thread() {
-            @Override
-            public void run() {
-                setPriority(Thread.MIN_PRIORITY);
-                for (;;) {
-                    try {
-                        sleep(60000L);
-                        synchronized (notes) {
-                            if (notes.isEmpty()) {
-                                return;
-                            }
-                            flushSaves();
-                        }
-                    } catch (Throwable t) {
-                    }
-                }
-            }
-        };
-        autosaveThread.setDaemon(true);
-        autosaveThread.start();
-        //this thread checks the notes every 1 second to make sure they're still inside the screen (in case the resolution changes)
-        Thread screenCheckThread = new Thread() {
-            @Override
-            public void run() {
-                setPriority(Thread.MIN_PRIORITY);
-                for (;;) {
-                    try {
-                        sleep(1000L);
-                        synchronized (notes) {
-                            if (notes.isEmpty()) {
-                                return;
-                            }
-                            for (Note n : notes) {
-                                n.setLocation(n.getPreferredLocation());
-                            }
-                        }
-                    } catch (Throwable t) {
-                    }
-                }
-            }
-        };
-        screenCheckThread.setDaemon(true);
-        screenCheckThread.start();
-        //this thread calls the java gc every 5 minutes to keep ram usage low
-        Thread gcThread = new Thread() {
-            @Override
-            public void run() {
-                setPriority(Thread.MIN_PRIORITY);
-                for (;;) {
-                    try {
-                        sleep(300000L);
-                        synchronized (notes) {
-                            if (notes.isEmpty()) {
-                                return;
-                            } else {
-                                System.gc();
-                            }
-                        }
-                    } catch (Throwable t) {
-                    }
-                }
-            }
-        };
-        gcThread.setDaemon(true);
-        gcThread.start();
-        System.gc(); //cleanup after starting
+        if (!hasVisibleNotes()) { //all the notes are in the notebook
+            NotebookWindow.open();
+        }
+        if (record) { //after saving, so that the trace starts from the storage
+            InputRecorder.start();
+        }
+        //metrics for jconsole, registered in the background because the platform MBean server takes a while to start
+        Background.execute("register stats", () -> RuntimeStats.register());
+        //when the screens change, make sure the notes are still inside them
+        ScreenGeometry.addChangeListener(() -> onScreensChanged());
+        //periodic work, on the background thread. paused when there's nothing to do, see autosave()
+        Background.every("autosave", () -> autosave(), AUTOSAVE_MS);
     }
 }
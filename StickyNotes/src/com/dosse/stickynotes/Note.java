@@ -26,24 +26,23 @@
  */
 package com.dosse.stickynotes;
 
-import java.awt.BasicStroke;
+import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Cursor;
 import java.awt.Dimension;
+import java.awt.DisplayMode;
 import java.awt.Graphics;
-import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
 import java.awt.Image;
 import java.awt.MouseInfo;
 import java.awt.Point;
 import java.awt.Rectangle;
-import java.awt.RenderingHints;
 import java.awt.Toolkit;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.StringSelection;
 import java.awt.datatransfer.Transferable;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
@@ -52,32 +51,53 @@ import java.awt.event.MouseWheelEvent;
 import java.awt.event.MouseWheelListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.awt.geom.RoundRectangle2D;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 import javax.imageio.ImageIO;
 import javax.swing.GroupLayout;
 import javax.swing.JButton;
 import javax.swing.JDialog;
+import javax.swing.JMenu;
 import javax.swing.JMenuItem;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
 import javax.swing.JScrollPane;
 import javax.swing.JTextPane;
 import javax.swing.LayoutStyle;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.WindowConstants;
 import javax.swing.border.LineBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.PopupMenuEvent;
+import javax.swing.event.PopupMenuListener;
 import javax.swing.event.UndoableEditEvent;
 import javax.swing.event.UndoableEditListener;
 import javax.swing.plaf.FontUIResource;
 import javax.swing.text.AttributeSet;
 import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultStyledDocument;
 import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.GapContent;
 import javax.swing.text.MutableAttributeSet;
 import javax.swing.text.SimpleAttributeSet;
 import javax.swing.text.StyleConstants;
+import javax.swing.text.StyleContext;
 import javax.swing.text.StyledDocument;
 import javax.swing.text.rtf.RTFEditorKit;
+import javax.swing.undo.CompoundEdit;
 import javax.swing.undo.UndoManager;
 
 /**
@@ -255,19 +275,69 @@ public class Note extends JDialog {
     private static final int MENU_ITEM_HEIGHT = 28;
     private static final int CORNER_RADIUS = 22;
     private static final float SCALE_FACTOR = 0.85f;
-    private static final float TEXT_SCALE_STEP = 0.1f;
+    static final float TEXT_SCALE_STEP = 0.1f;
+    private static final int FRAME_MILLIS = frameMillis(); //moves and resizes are coalesced to one per frame
 
     //UI Elements
     private final JPanel wrapper1; //outer wrapper: it's the area that the user can use to resize the window
     private final JPanel wrapper2; //inner wrapper: it contains the buttons and the actual note; the empty space can be dragged to move the note
     private int mouseDragStartX, mouseDragStartY; //used for dragging
+    private final Rectangle pendingBounds = new Rectangle(); //latest bounds requested by dragging or resizing, applied at most once per frame
+    private long lastBoundsUpdate = 0; //time of the last bounds update applied while dragging or resizing, in nanoseconds
+    private final Timer boundsTimer; //applies the pending bounds when the next frame is due
+    private final RoundRectangle2D.Double windowShape = new RoundRectangle2D.Double(); //rounded window shape, updated in place when the size changes
     private final JButton deleteNote, newNote; //buttons to delete and create notes
     private final JScrollPane jScrollPane1; //container for the text. provides the scrollbar
     private final JTextPane text; //the actual note - JTextPane for rich text formatting
     private final UndoManager undo = new UndoManager(); //undo/redo manager (provided by swing)
-    private final FormatMenu formatMenu; //modern format menu shown when text is right-clicked
-    private final JPopupMenu colorMenu; //menu shown when the top is right-clicked
+    private final JPanel findBarHolder; //placeholder for the find bar in the layout, hidden until the bar is first opened
+    private FindBar findBar = null; //find and replace bar, created the first time it's opened
+    private CompoundEdit bulkEdit = null; //if not null, undoable edits are collected here instead of going to the undo manager
+    private volatile long lastModified = System.currentTimeMillis(); //time of the last change to the text, shown in the notebook
+    private volatile boolean stowed = false; //true if the note was sent to the notebook and is not on the desktop
+    private final NoteIndex.Tracker index; //keeps the #tags and [[links]] of this note in the index
+    private volatile byte[] hibernatedText = null; //if not null, the note is hibernated and this is its text, UTF-8 encoded and deflated
+    private int hibernatedLength = 0; //length in characters of the hibernated text
+    private String hibernatedPreview = ""; //beginning of the hibernated text, so that the notebook can show it without inflating
+    private static final int HIBERNATED_PREVIEW_LENGTH = 256;
+
+    private final UndoableEditListener undoListener = new UndoableEditListener() {
+        @Override
+        public void undoableEditHappened(UndoableEditEvent e) {
+            if (bulkEdit != null) {
+                bulkEdit.addEdit(e.getEdit());
+            } else {
+                undo.addEdit(e.getEdit());
+            }
+        }
+    };
+
+    private int edits = 0; //changes to the document, only used on the EDT to tell if a keystroke did anything
+    private final DocumentListener modifiedListener = new DocumentListener() {
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            textModified();
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            textModified();
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+            textModified();
+        }
+    };
+
+    private void textModified() {
+        edits++;
+        lastModified = System.currentTimeMillis();
+        Main.changed(); //the autosave may be paused
+    }
     private Point preferredLocation = new Point(0, 0); //the preferred location is the last user-set location of the note. this is useful when the screen resolution is changed and the notes are all scrambled up
+    private final LinkedHashMap<String, Rectangle> layouts = new LinkedHashMap<>(); //last bounds used with each arrangement of screens, by screen fingerprint, least recently used first
+    private static final int MAX_LAYOUTS = 8; //arrangements of screens remembered by each note
     private float textScale = 1; //text zoom
     private static final float MIN_TEXT_SCALE = 0.2f, MAX_TEXT_SCALE = 4f; //min max text zoom
 
@@ -278,6 +348,8 @@ public class Note extends JDialog {
      * mouse coordinates.
      */
     public Note() {
+        Profiling.NoteConstruction event = new Profiling.NoteConstruction();
+        event.begin();
         setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE); //if alt+f4 is pressed, this will cause the windowClosing event to be fired
         addWindowListener(new WindowAdapter() {
             @Override
@@ -300,6 +372,7 @@ public class Note extends JDialog {
                 text.requestFocusInWindow();
             }
         });
+        ScreenGeometry.watch(this); //the screens are checked again when the display configuration changes
         setTitle(getLocString("APPNAME")); //set window title
         setIconImage(loadImage("/com/dosse/stickynotes/icon.png")); //set window icon
         setUndecorated(true); //removes system window border
@@ -309,11 +382,7 @@ public class Note extends JDialog {
         wrapper1 = new JPanel() {
             @Override
             protected void paintComponent(Graphics g) {
-                Graphics2D g2 = (Graphics2D) g.create();
-                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                g2.setColor(getBackground());
-                g2.fillRoundRect(0, 0, getWidth(), getHeight(), (int)(CORNER_RADIUS * Main.SCALE), (int)(CORNER_RADIUS * Main.SCALE));
-                g2.dispose();
+                NoteChrome.paintBody(this, g, getBackground(), (int)(CORNER_RADIUS * Main.SCALE));
             }
         };
         wrapper1.setOpaque(false);
@@ -321,13 +390,8 @@ public class Note extends JDialog {
         wrapper2 = new JPanel() {
             @Override
             protected void paintComponent(Graphics g) {
-                Graphics2D g2 = (Graphics2D) g.create();
-                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                g2.setColor(getBackground());
                 // Only round top corners for header area
-                g2.fillRoundRect(0, 0, getWidth(), (int)(HEADER_HEIGHT * Main.SCALE), (int)(CORNER_RADIUS * Main.SCALE), (int)(CORNER_RADIUS * Main.SCALE));
-                g2.fillRect(0, (int)(CORNER_RADIUS * Main.SCALE), getWidth(), getHeight() - (int)(CORNER_RADIUS * Main.SCALE));
-                g2.dispose();
+                NoteChrome.paintHeader(this, g, getBackground(), (int)(HEADER_HEIGHT * Main.SCALE), (int)(CORNER_RADIUS * Main.SCALE));
             }
         };
         wrapper2.setOpaque(false);
@@ -351,25 +415,7 @@ public class Note extends JDialog {
             }
             @Override
             protected void paintComponent(Graphics g) {
-                Graphics2D g2 = (Graphics2D) g.create();
-                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                if (isPressed) {
-                    g2.setColor(new Color(0, 0, 0, 40));
-                } else if (isHovered) {
-                    g2.setColor(new Color(0, 0, 0, 20));
-                }
-                if (isHovered || isPressed) {
-                    g2.fillRoundRect(2, 2, getWidth()-4, getHeight()-4, 6, 6);
-                }
-                int cx = getWidth() / 2;
-                int cy = getHeight() / 2;
-                int arm = (int) (Math.min(getWidth(), getHeight()) / 3f * 0.4f); // 60% smaller
-                float stroke = Math.max(1.5f, 1.2f * Main.SCALE);
-                g2.setStroke(new BasicStroke(stroke, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-                g2.setColor(getForeground());
-                g2.drawLine(cx - arm, cy, cx + arm, cy);
-                g2.drawLine(cx, cy - arm, cx, cy + arm);
-                g2.dispose();
+                NoteChrome.paintNewButton(this, g, isPressed ? NoteChrome.PRESSED : isHovered ? NoteChrome.HOVER : NoteChrome.IDLE);
             }
         };
         
@@ -390,54 +436,53 @@ public class Note extends JDialog {
             }
             @Override
             protected void paintComponent(Graphics g) {
-                Graphics2D g2 = (Graphics2D) g.create();
-                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                Color iconColor = getForeground();
-                if (isPressed) {
-                    g2.setColor(new Color(232, 17, 35, 200));
-                    iconColor = Color.WHITE;
-                } else if (isHovered) {
-                    g2.setColor(new Color(232, 17, 35, 160));
-                    iconColor = Color.WHITE;
-                }
-                if (isHovered || isPressed) {
-                    g2.fillRoundRect(2, 2, getWidth()-4, getHeight()-4, 6, 6);
-                }
-                int cx = getWidth() / 2;
-                int cy = getHeight() / 2;
-                int arm = (int) (Math.min(getWidth(), getHeight()) / 3f * 0.4f); // 60% smaller
-                float stroke = Math.max(1.5f, 1.2f * Main.SCALE);
-                g2.setStroke(new BasicStroke(stroke, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-                g2.setColor(iconColor);
-                g2.drawLine(cx - arm, cy - arm, cx + arm, cy + arm);
-                g2.drawLine(cx - arm, cy + arm, cx + arm, cy - arm);
-                g2.dispose();
+                NoteChrome.paintDeleteButton(this, g, isPressed ? NoteChrome.PRESSED : isHovered ? NoteChrome.HOVER : NoteChrome.IDLE);
             }
         };
         
         jScrollPane1 = new JScrollPane();
         //create the text pane with rich text support
         text = new JTextPane() {
+            private long keyTime = 0; //when the oldest keystroke that hasn't been painted yet came in, 0 if there's none
+
             @Override
             public boolean getScrollableTracksViewportWidth() {//configures the textpane to resize properly horizontaly (workaround for swing bug)
                 return true;
             }
+
+            @Override
+            protected void processKeyEvent(KeyEvent e) {
+                if (keyTime != 0 || !TypingLatency.isKeystroke(e)) {
+                    super.processKeyEvent(e);
+                    return;
+                }
+                long t = System.nanoTime();
+                int oldEdits = edits, oldDot = getCaret().getDot(), oldMark = getCaret().getMark();
+                super.processKeyEvent(e);
+                if (edits != oldEdits || getCaret().getDot() != oldDot || getCaret().getMark() != oldMark) {
+                    keyTime = t; //only keystrokes that changed something are going to be painted
+                }
+            }
+
+            @Override
+            public void paint(Graphics g) {
+                super.paint(g);
+                if (keyTime != 0) {
+                    TypingLatency.record(getDocument().getLength(), System.nanoTime() - keyTime);
+                    keyTime = 0;
+                }
+            }
         };
         
         // Set modern text area margins
         text.setMargin(new java.awt.Insets((int)(8 * Main.SCALE), (int)(12 * Main.SCALE), (int)(8 * Main.SCALE), (int)(12 * Main.SCALE)));
         
-        //allow undo/redo
+        //allow undo/redo and keep track of the modification time
         Document doc = text.getDocument();
-        doc.addUndoableEditListener(new UndoableEditListener() {
-            @Override
-            public void undoableEditHappened(UndoableEditEvent e) {
-                undo.addEdit(e.getEdit());
-            }
-        });
-        
-        // Initialize modern format menu
-        formatMenu = new FormatMenu(text, getBackground());
+        doc.addUndoableEditListener(undoListener);
+        doc.addDocumentListener(modifiedListener);
+        //index #tags and [[links]] in the text
+        index = NoteIndex.track(this, doc);
 
         jScrollPane1.setBorder(null);
         jScrollPane1.setViewportView(text); //add text area to scrollpane
@@ -446,18 +491,31 @@ public class Note extends JDialog {
         jScrollPane1.getVerticalScrollBar().setPreferredSize(new Dimension((int)(8 * Main.SCALE), 0));
         jScrollPane1.getVerticalScrollBar().setUnitIncrement((int)(16 * Main.SCALE));
 
-        //events used for dragging the note
+        //events used for dragging the note. mice can send up to 1000 events per second, the window is moved at most once per frame
+        boundsTimer = new Timer(FRAME_MILLIS, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                applyPendingBounds();
+            }
+        });
+        boundsTimer.setRepeats(false);
         wrapper2.addMouseListener(new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent evt) {
+                ScreenGeometry.scheduleCheck(); //before the note is clamped to the screens, in case they changed without notice
                 mouseDragStartX = evt.getXOnScreen() - getX();
                 mouseDragStartY = evt.getYOnScreen() - getY();
             }
+
+            @Override
+            public void mouseReleased(MouseEvent evt) {
+                flushPendingBounds();
+            }
         });
         wrapper2.addMouseMotionListener(new MouseMotionAdapter() {
             @Override
             public void mouseDragged(MouseEvent evt) {
-                setLocation(evt.getXOnScreen() - mouseDragStartX, evt.getYOnScreen() - mouseDragStartY);
+                requestBounds(evt.getXOnScreen() - mouseDragStartX, evt.getYOnScreen() - mouseDragStartY, getWidth(), getHeight());
             }
         });
         
@@ -468,34 +526,33 @@ public class Note extends JDialog {
             @Override
             public void mousePressed(MouseEvent e) {
                 direction = getResizeDirection(e.getX(), e.getY());
+                resizeDirection = direction;
                 if (direction != 0) {
+                    ScreenGeometry.scheduleCheck(); //before the note is clamped to the screens, in case they changed without notice
                     startResizeX = e.getXOnScreen();
                     startResizeY = e.getYOnScreen();
+                    startResizeLeft = getX();
+                    startResizeTop = getY();
                     startResizeWidth = getWidth();
                     startResizeHeight = getHeight();
                 }
             }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                flushPendingBounds();
+            }
         });
         
         addMouseMotionListener(new MouseMotionAdapter() {
-            private int direction = 0;
-            
             @Override
             public void mouseMoved(MouseEvent e) {
-                lastMouseX = e.getX();
-                lastMouseY = e.getY();
-                direction = getResizeDirection(e.getX(), e.getY());
-                updateCursor(direction);
+                updateCursor(getResizeDirection(e.getX(), e.getY()));
             }
             
             @Override
             public void mouseDragged(MouseEvent e) {
-                lastMouseX = e.getX();
-                lastMouseY = e.getY();
-                if (direction == 0) {
-                    direction = getResizeDirection(e.getX(), e.getY());
-                }
-                if (direction != 0) {
+                if (resizeDirection != 0) {
                     resizeWindow(e.getXOnScreen(), e.getYOnScreen());
                 }
             }
@@ -536,57 +593,42 @@ public class Note extends JDialog {
         text.addMouseListener(new MouseAdapter() {
             public void mouseClicked(MouseEvent evt) {
                 if (evt.isPopupTrigger() || evt.getButton() == MouseEvent.BUTTON3) { //isPopupTrigger does not work on windows. workaround is to listen for BUTTON3 instead (right mouse button)
-                    formatMenu.show(evt.getComponent(), evt.getX(), evt.getY()); //show the modern format menu at current mouse location
+                    FormatMenu.showFor(text, text.getBackground(), evt.getComponent(), evt.getX(), evt.getY()); //show the modern format menu at current mouse location
                 }
             }
         });
         
-        // Add keyboard shortcuts for formatting
-        text.addKeyListener(new KeyAdapter() {
+        //ctrl+click on a #tag or [[link]] lists the notes it refers to
+        text.addMouseListener(new MouseAdapter() {
             @Override
-            public void keyPressed(KeyEvent e) {
-                if (e.isControlDown() || e.isMetaDown()) {
-                    StyledDocument doc = text.getStyledDocument();
-                    int start = text.getSelectionStart();
-                    int end = text.getSelectionEnd();
-                    
-                    if (e.getKeyCode() == KeyEvent.VK_B) {
-                        // Toggle bold
-                        MutableAttributeSet attr = new SimpleAttributeSet();
-                        boolean isBold = StyleConstants.isBold(text.getCharacterAttributes());
-                        StyleConstants.setBold(attr, !isBold);
-                        if (start != end) {
-                            doc.setCharacterAttributes(start, end - start, attr, false);
-                        } else {
-                            text.getInputAttributes().addAttributes(attr);
-                        }
-                        e.consume();
-                    } else if (e.getKeyCode() == KeyEvent.VK_I) {
-                        // Toggle italic
-                        MutableAttributeSet attr = new SimpleAttributeSet();
-                        boolean isItalic = StyleConstants.isItalic(text.getCharacterAttributes());
-                        StyleConstants.setItalic(attr, !isItalic);
-                        if (start != end) {
-                            doc.setCharacterAttributes(start, end - start, attr, false);
-                        } else {
-                            text.getInputAttributes().addAttributes(attr);
-                        }
-                        e.consume();
-                    } else if (e.getKeyCode() == KeyEvent.VK_U) {
-                        // Toggle underline
-                        MutableAttributeSet attr = new SimpleAttributeSet();
-                        boolean isUnderline = StyleConstants.isUnderline(text.getCharacterAttributes());
-                        StyleConstants.setUnderline(attr, !isUnderline);
-                        if (start != end) {
-                            doc.setCharacterAttributes(start, end - start, attr, false);
+            public void mouseClicked(MouseEvent evt) {
+                if (evt.getButton() == MouseEvent.BUTTON1 && (evt.isControlDown() || evt.isMetaDown())) {
+                    String token = NoteIndex.tokenAt(text.getDocument(), text.viewToModel2D(evt.getPoint()));
+                    if (token != null) {
+                        List<Note> targets = token.startsWith("#") ? NoteIndex.getNotesWithTag(token) : NoteIndex.getNotesWithTitle(token.substring(2));
+                        if (targets.size() == 1 && !token.startsWith("#")) {
+                            Main.show(targets.get(0));
                         } else {
-                            text.getInputAttributes().addAttributes(attr);
+                            showNoteList(evt.getComponent(), evt.getX(), evt.getY(), targets);
                         }
-                        e.consume();
+                        evt.consume();
                     }
                 }
             }
         });
+        text.addMouseMotionListener(new MouseMotionAdapter() {
+            @Override
+            public void mouseMoved(MouseEvent evt) {
+                if ((evt.isControlDown() || evt.isMetaDown()) && NoteIndex.tokenAt(text.getDocument(), text.viewToModel2D(evt.getPoint())) != null) {
+                    text.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+                } else if (text.getCursor().getType() != Cursor.TEXT_CURSOR) {
+                    text.setCursor(Cursor.getPredefinedCursor(Cursor.TEXT_CURSOR));
+                }
+            }
+        });
+
+        //keyboard shortcuts (formatting, zoom, new/delete, find, undo/redo...), shared by all the notes and configurable
+        Keymap.install(text);
 
         //listener for ctrl+wheel (for zooming in and out)
         text.addMouseWheelListener(new MouseWheelListener() {
@@ -604,139 +646,24 @@ public class Note extends JDialog {
             }
         });
 
-        //listener for ctrl+add, ctrl+minus, ctrl+NP0 (for zooming in and out)
-        text.addKeyListener(new KeyAdapter() {
-            @Override
-            public void keyPressed(KeyEvent e) {
-                if (e.isControlDown() || e.isMetaDown()) {
-                    if (e.getKeyCode() == KeyEvent.VK_ADD) {
-                        setTextScale(textScale + TEXT_SCALE_STEP);
-                    } else if (e.getKeyCode() == KeyEvent.VK_SUBTRACT) {
-                        setTextScale(textScale - TEXT_SCALE_STEP);
-                    } else if (e.getKeyCode() == KeyEvent.VK_NUMPAD0) {
-                        setTextScale(1);
-                    }
-                }
-            }
-        });
-
-        //listener for ctrl+N, ctrl+D
-        text.addKeyListener(new KeyAdapter() {
-            @Override
-            public void keyPressed(KeyEvent e) {
-                if (e.isControlDown() || e.isMetaDown()) {
-                    if (e.getKeyCode() == KeyEvent.VK_N) {
-                        Main.newNote().setLocation((int) (preferredLocation.x + 40 * Main.SCALE), (int) (preferredLocation.y + 40 * Main.SCALE));
-                    } else if (e.getKeyCode() == KeyEvent.VK_D) {
-                        Main.delete(Note.this);
-                    }
-                }
-            }
-        });
-
-        //listener for ctrl+A (select all text)
-        text.addKeyListener(new KeyAdapter() {
-            @Override
-            public void keyPressed(KeyEvent e) {
-                if (e.isControlDown() || e.isMetaDown()) {
-                    if (e.getKeyCode() == KeyEvent.VK_A) {
-                        text.selectAll();
-                    }
-                }
-            }
-        });
-
-        //listener for ctrl+Z, ctrl+Y (undo, redo)
-        text.addKeyListener(new KeyAdapter() {
-            @Override
-            public void keyPressed(KeyEvent e) {
-                if (e.isControlDown() || e.isMetaDown()) {
-                    if (e.getKeyCode() == KeyEvent.VK_Z) {
-                        if (undo.canUndo()) {
-                            undo.undo();
-                        }
-                    } else if (e.getKeyCode() == KeyEvent.VK_Y) {
-                        if (undo.canRedo()) {
-                            undo.redo();
-                        }
-                    }
-
-                }
-            }
-        });
-
         //right click on top bar
         wrapper2.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent evt) {
                 if (evt.isPopupTrigger() || evt.getButton() == MouseEvent.BUTTON3) {
-                    colorMenu.show(evt.getComponent(), evt.getX(), evt.getY()); //show color selection menu
+                    ColorMenu.showFor(Note.this, evt.getComponent(), evt.getX(), evt.getY()); //show color selection menu
                 }
             }
         });
 
-        //initialize color selection menu (right click on top bar)
-        colorMenu = new JPopupMenu();
-        // Windows 11 style color palette - includes dark theme option
-        colorMenu.add(new ColorSelector(new Color[][]{YELLOW_SCHEME, ORANGE_SCHEME, BLUE_SCHEME, GREEN_SCHEME, PINK_SCHEME, PURPLE_SCHEME, RED_SCHEME, WHITE_SCHEME, CHARCOAL_SCHEME}) {
-            @Override
-            public void onColorSchemeSelected(Color[] scheme) {
-                setColorScheme(scheme);
-                colorMenu.setVisible(false);
-                Main.requestSave();
-            }
-        });
-        //custom color selector
-        colorMenu.add(new CustomColorSelector() {
-            @Override
-            public void onColorSelected(Color c) {
-                //compute all colors from the selected color
-                float[] hsb = Color.RGBtoHSB(c.getRed(), c.getGreen(), c.getBlue(), null);
-                hsb[1] *= 0.69f; //reduce saturation
-                if (hsb[2] < 0.55f) {
-                    //if brightness<55%, use dark settings
-                    Color internal = new Color(Color.HSBtoRGB(hsb[0], hsb[1], hsb[2])),
-                            external = new Color(Color.HSBtoRGB(hsb[0], hsb[1], hsb[2] + 0.1f)),
-                            bar = external,
-                            buttons = new Color(Color.HSBtoRGB(hsb[0], hsb[1], hsb[2] + 0.3f)),
-                            lineBorder = new Color(Color.HSBtoRGB(hsb[0], hsb[1], hsb[2] + 0.15f)),
-                            text = new Color(255, 255, 255),
-                            selectionBk = hsb[1] < 0.01f ? new Color(192, 192, 192) : new Color(Color.HSBtoRGB(hsb[0]-0.05f, hsb[1]+0.2f, 1f)), //if low saturation, use alternative selection color instead of computed one
-                            selectedText = new Color(0, 0, 0);
-                    Color[] customScheme = new Color[]{external, lineBorder, bar, buttons, internal, text, selectionBk, selectedText};
-                    setColorScheme(customScheme);
-                } else {
-                    //otherwise, use bright settings
-                    Color internal = new Color(Color.HSBtoRGB(hsb[0], hsb[1], hsb[2])),
-                            external = new Color(Color.HSBtoRGB(hsb[0], hsb[1], hsb[2] - 0.04f)),
-                            bar = external,
-                            buttons = new Color(Color.HSBtoRGB(hsb[0], hsb[1], hsb[2] - 0.35f)),
-                            lineBorder = new Color(Color.HSBtoRGB(hsb[0], hsb[1], hsb[2] - 0.1f)),
-                            text = new Color(0, 0, 0),
-                            selectionBk = hsb[1] < 0.01f ? new Color(72, 72, 72) : new Color(Color.HSBtoRGB(hsb[0], hsb[1]+0.2f, 0.4f)), //if low saturation, use alternative selection color instead of computed one
-                            selectedText = new Color(255, 255, 255);
-                    Color[] customScheme = new Color[]{external, lineBorder, bar, buttons, internal, text, selectionBk, selectedText};
-                    setColorScheme(customScheme);
-                }
-                colorMenu.setVisible(false);
-                Main.requestSave();
-            }
-        });
-        colorMenu.add(new JPopupMenu.Separator());
-        JMenuItem m = new JMenuItem(getLocString("ABOUT"));
-        m.setPreferredSize(new Dimension((int) (MENU_ITEM_WIDTH * Main.SCALE), (int) (MENU_ITEM_HEIGHT * Main.SCALE)));
-        m.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                new AboutDialog(null, true).setVisible(true);
-            }
-        });
-        colorMenu.add(m);
 
         //add everything to the layout - Windows 11 Modern Style
         int buttonSize = (int)(BUTTON_HEIGHT * Main.SCALE);
         int padding = (int)(3 * Main.SCALE);
         int headerPadding = (int)(6 * Main.SCALE);
+        findBarHolder = new JPanel(new BorderLayout());
+        findBarHolder.setOpaque(false);
+        findBarHolder.setVisible(false);
         
         GroupLayout wrapper2Layout = new GroupLayout(wrapper2);
         wrapper2.setLayout(wrapper2Layout);
@@ -748,6 +675,7 @@ public class Note extends JDialog {
                     .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED, 134, Short.MAX_VALUE)
                     .addComponent(deleteNote, GroupLayout.PREFERRED_SIZE, buttonSize, GroupLayout.PREFERRED_SIZE)
                     .addGap(headerPadding))
+                .addComponent(findBarHolder, GroupLayout.PREFERRED_SIZE, 0, Short.MAX_VALUE)
                 .addComponent(jScrollPane1, GroupLayout.PREFERRED_SIZE, 0, Short.MAX_VALUE)
         );
         wrapper2Layout.setVerticalGroup(
@@ -758,6 +686,7 @@ public class Note extends JDialog {
                         .addComponent(deleteNote, GroupLayout.PREFERRED_SIZE, buttonSize, GroupLayout.PREFERRED_SIZE)
                         .addComponent(newNote, GroupLayout.PREFERRED_SIZE, buttonSize, GroupLayout.PREFERRED_SIZE))
                     .addGap(padding)
+                    .addComponent(findBarHolder, GroupLayout.PREFERRED_SIZE, GroupLayout.PREFERRED_SIZE, GroupLayout.PREFERRED_SIZE)
                     .addComponent(jScrollPane1, GroupLayout.DEFAULT_SIZE, 200, Short.MAX_VALUE))
         );
         
@@ -784,11 +713,68 @@ public class Note extends JDialog {
         addComponentListener(new java.awt.event.ComponentAdapter() {
             @Override
             public void componentResized(java.awt.event.ComponentEvent e) {
-                setShape(new java.awt.geom.RoundRectangle2D.Double(0, 0, getWidth(), getHeight(), CORNER_RADIUS * Main.SCALE, CORNER_RADIUS * Main.SCALE));
+                //resizes are coalesced to one per frame, and the native window region is only updated if the size really changed
+                if (windowShape.width != getWidth() || windowShape.height != getHeight()) {
+                    windowShape.setRoundRect(0, 0, getWidth(), getHeight(), CORNER_RADIUS * Main.SCALE, CORNER_RADIUS * Main.SCALE);
+                    setShape(windowShape);
+                }
             }
         });
 
         //and we're done
+        event.commit();
+    }
+
+    /**
+     * requests new bounds while dragging or resizing. They're applied right
+     * away if a frame has passed since the last update, otherwise when the
+     * next frame is due, together with any other request that comes in the
+     * meantime. This way the native window is moved, resized and reshaped,
+     * and the layout is done, at most once per frame.
+     */
+    private void requestBounds(int x, int y, int width, int height) {
+        pendingBounds.setBounds(x, y, width, height);
+        if (boundsTimer.isRunning()) {
+            return; //an update is already scheduled, it will use the new bounds
+        }
+        long wait = FRAME_MILLIS - (System.nanoTime() - lastBoundsUpdate) / 1000000L;
+        if (wait <= 0) {
+            applyPendingBounds();
+        } else {
+            boundsTimer.setInitialDelay((int) wait);
+            boundsTimer.start();
+        }
+    }
+
+    /**
+     * applies the pending bounds right away if there are any, when the mouse
+     * is released
+     */
+    private void flushPendingBounds() {
+        if (boundsTimer.isRunning()) {
+            boundsTimer.stop();
+            applyPendingBounds();
+        }
+    }
+
+    private void applyPendingBounds() {
+        lastBoundsUpdate = System.nanoTime();
+        setBounds(pendingBounds.x, pendingBounds.y, pendingBounds.width, pendingBounds.height); //one native call instead of setLocation+setSize
+    }
+
+    /**
+     * @return duration of a frame on the main screen in milliseconds, 16 if
+     * the refresh rate is unknown
+     */
+    private static int frameMillis() {
+        try {
+            int hz = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+            if (hz != DisplayMode.REFRESH_RATE_UNKNOWN && hz > 0) {
+                return Math.max(1, 1000 / hz);
+            }
+        } catch (Throwable t) {
+        }
+        return 16;
     }
 
     /**
@@ -827,14 +813,28 @@ public class Note extends JDialog {
         }
         preferredLocation.x = x;
         preferredLocation.y = y;
-        Dimension s = Main.getExtendedScreenResolution();
-        if (x + 60 * Main.SCALE > s.width) {
-            x = (int) (s.width - 60 * Main.SCALE);
+        ScreenGeometry.Layout s = ScreenGeometry.get(); //cached, doesn't query the screens
+        if (layouts != null) { //null while the superclass is being constructed
+            synchronized (layouts) {
+                Rectangle r = layouts.remove(s.getFingerprint());
+                if (r == null) {
+                    r = new Rectangle();
+                }
+                r.setBounds(x, y, width, height);
+                layouts.put(s.getFingerprint(), r); //most recently used last
+                if (layouts.size() > MAX_LAYOUTS) {
+                    layouts.remove(layouts.keySet().iterator().next());
+                }
+            }
+        }
+        if (x + 60 * Main.SCALE > s.getWidth()) {
+            x = (int) (s.getWidth() - 60 * Main.SCALE);
         }
-        if (y + 60 * Main.SCALE > s.height) {
-            y = (int) (s.height - 60 * Main.SCALE);
+        if (y + 60 * Main.SCALE > s.getHeight()) {
+            y = (int) (s.getHeight() - 60 * Main.SCALE);
         }
         super.setBounds(x, y, width, height);
+        Main.changed(); //the bounds are saved
     }
 
     /**
@@ -848,12 +848,24 @@ public class Note extends JDialog {
     }
 
     /**
-     * get text currently inside the note
+     * get text currently inside the note. Can be called from any thread: the
+     * note may be hibernated or woken up while the text is read, so
+     * hibernatedText is checked again after reading the document (hibernate
+     * sets it before dropping the document, rehydrate clears it after
+     * attaching the new one)
      *
      * @return text
      */
     public String getText() {
-        return text.getText();
+        byte[] h = hibernatedText;
+        if (h == null) {
+            String s = text.getText();
+            h = hibernatedText;
+            if (h == null) {
+                return s; //the document wasn't swapped while it was read
+            }
+        }
+        return inflate(h);
     }
 
     /**
@@ -862,10 +874,307 @@ public class Note extends JDialog {
      * @param s
      */
     public void setText(String s) {
+        if (hibernatedText != null) {
+            rehydrate();
+        }
         text.setText(s);
         undo.discardAllEdits();
     }
 
+    /**
+     * get the beginning of the text, without reading the whole document
+     *
+     * @param maxChars maximum number of characters to return
+     * @return up to maxChars characters from the start of the note
+     */
+    public String getPreview(int maxChars) {
+        if (hibernatedText != null) {
+            if (maxChars <= hibernatedPreview.length() || hibernatedPreview.length() == hibernatedLength) {
+                return hibernatedPreview.substring(0, Math.min(maxChars, hibernatedPreview.length()));
+            }
+            String t = getText();
+            return t.substring(0, Math.min(maxChars, t.length()));
+        }
+        Document d = text.getDocument();
+        try {
+            return d.getText(0, Math.min(maxChars, d.getLength()));
+        } catch (BadLocationException e) {
+            return "";
+        }
+    }
+
+    /**
+     * @return length of the text in characters
+     */
+    public int getTextLength() {
+        return hibernatedText != null ? hibernatedLength : text.getDocument().getLength();
+    }
+
+    /**
+     * @return true if the note is hibernated
+     */
+    public boolean isHibernated() {
+        return hibernatedText != null;
+    }
+
+    /**
+     * hibernates the note: the window is disposed, releasing its native
+     * resources, the document is dropped and the text is kept deflated. The
+     * note comes back automatically when it's made visible. Only the plain
+     * text is kept, so formatting and undo history are lost: notes with
+     * formatting are only hibernated when the user sends them to the notebook
+     * (see isPlainText and Main.hibernateIdleNotes).
+     *
+     * Must be called on the EDT, or before the note is shown for the first
+     * time.
+     */
+    void hibernate() {
+        if (hibernatedText != null) {
+            return;
+        }
+        hideFindBar();
+        if (isDisplayable()) {
+            setVisible(false);
+            dispose();
+        }
+        String s = text.getText();
+        long modified = lastModified;
+        StyledDocument old = text.getStyledDocument();
+        index.detach();
+        old.removeUndoableEditListener(undoListener);
+        old.removeDocumentListener(modifiedListener);
+        undo.discardAllEdits();
+        hibernatedLength = s.length();
+        hibernatedPreview = s.length() > HIBERNATED_PREVIEW_LENGTH ? s.substring(0, HIBERNATED_PREVIEW_LENGTH) : s;
+        hibernatedText = deflate(s);
+        text.setDocument(new DefaultStyledDocument()); //empty placeholder, lets the old document be collected
+        lastModified = modified;
+    }
+
+    /**
+     * @return true if the note has no formatting, so hibernating or compacting
+     * it only loses the undo history. Must be called on the EDT.
+     */
+    boolean isPlainText() {
+        return hibernatedText != null || !hasFormatting(text.getStyledDocument().getDefaultRootElement());
+    }
+
+    /**
+     * restores the document of a hibernated note. The text is inserted in a
+     * new document before it's attached to the text pane and to the
+     * listeners, so that no views or events are involved.
+     */
+    void rehydrate() {
+        byte[] h = hibernatedText;
+        if (h == null) {
+            return;
+        }
+        DefaultStyledDocument d = new DefaultStyledDocument();
+        try {
+            d.insertString(0, inflate(h), null);
+        } catch (BadLocationException e) {
+            //can't happen on an empty document
+        }
+        d.addUndoableEditListener(undoListener);
+        d.addDocumentListener(modifiedListener);
+        index.attach(d);
+        text.setDocument(d);
+        hibernatedText = null; //only after the text is in the text pane, see getText
+        hibernatedPreview = "";
+        text.setCaretPosition(0);
+    }
+
+    /**
+     * rebuilds the document of an idle note in a buffer of the right size
+     * (documents grow by doubling and never shrink) and drops its undo
+     * history. Only done on notes without formatting, so only the undo
+     * history is lost. The caret and the scroll position are kept.
+     *
+     * Must be called on the EDT.
+     *
+     * @return true if the note was compacted
+     */
+    boolean compact() {
+        if (hibernatedText != null || isFocused()) {
+            return false;
+        }
+        StyledDocument old = text.getStyledDocument();
+        if (hasFormatting(old.getDefaultRootElement())) {
+            return false;
+        }
+        String s;
+        try {
+            s = old.getText(0, old.getLength());
+        } catch (BadLocationException e) {
+            return false;
+        }
+        int caret = text.getCaretPosition();
+        Point view = jScrollPane1.getViewport().getViewPosition();
+        long modified = lastModified;
+        index.detach();
+        old.removeUndoableEditListener(undoListener);
+        old.removeDocumentListener(modifiedListener);
+        undo.discardAllEdits();
+        DefaultStyledDocument d = new DefaultStyledDocument(new GapContent(s.length() + 1), new StyleContext());
+        try {
+            d.insertString(0, s, null);
+        } catch (BadLocationException e) {
+            //can't happen on an empty document
+        }
+        d.addUndoableEditListener(undoListener);
+        d.addDocumentListener(modifiedListener);
+        index.attach(d);
+        text.setDocument(d);
+        text.setCaretPosition(Math.min(caret, d.getLength()));
+        jScrollPane1.getViewport().setViewPosition(view);
+        lastModified = modified;
+        return true;
+    }
+
+    /**
+     * @return true if the element or any of its children has attributes
+     * other than the default style
+     */
+    private static boolean hasFormatting(Element e) {
+        AttributeSet a = e.getAttributes();
+        if (a.getAttributeCount() > (a.isDefined(StyleConstants.ResolveAttribute) ? 1 : 0)) {
+            return true;
+        }
+        for (int i = 0; i < e.getElementCount(); i++) {
+            if (hasFormatting(e.getElement(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] deflate(String s) {
+        byte[] raw = s.getBytes(StandardCharsets.UTF_8);
+        Deflater d = new Deflater(Deflater.BEST_SPEED);
+        d.setInput(raw);
+        d.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 3 + 16);
+        byte[] buf = new byte[8192];
+        while (!d.finished()) {
+            out.write(buf, 0, d.deflate(buf));
+        }
+        d.end();
+        return out.toByteArray();
+    }
+
+    private static String inflate(byte[] b) {
+        Inflater i = new Inflater();
+        i.setInput(b);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(b.length * 3);
+        byte[] buf = new byte[8192];
+        try {
+            while (!i.finished()) {
+                int n = i.inflate(buf);
+                if (n == 0 && (i.needsInput() || i.needsDictionary())) {
+                    break;
+                }
+                out.write(buf, 0, n);
+            }
+        } catch (DataFormatException e) {
+            //can't happen, the data was produced by deflate
+        } finally {
+            i.end();
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * shows or hides the note, rehydrating it first if it's hibernated
+     *
+     * @param b true to show the note
+     */
+    @Override
+    public void setVisible(boolean b) {
+        if (b && hibernatedText != null) {
+            rehydrate();
+        }
+        super.setVisible(b);
+    }
+
+    /**
+     * @return time of the last change to the text, in milliseconds since the
+     * epoch
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * restores the modification time, used when loading
+     *
+     * @param t time in milliseconds since the epoch
+     */
+    public void setLastModified(long t) {
+        lastModified = t;
+    }
+
+    /**
+     * @return true if the note is in the notebook and not on the desktop
+     */
+    public boolean isStowed() {
+        return stowed;
+    }
+
+    /**
+     * marks the note as sent to the notebook. Use Main.stow and Main.show to
+     * actually hide and show it.
+     *
+     * @param stowed true if the note is in the notebook
+     */
+    public void setStowed(boolean stowed) {
+        this.stowed = stowed;
+    }
+
+    /**
+     * moves the note to where it was the last time this arrangement of screens
+     * was used, or to its preferred location if it was never used
+     *
+     * @param fingerprint screen fingerprint, see ScreenGeometry.Layout
+     */
+    public void applyLayout(String fingerprint) {
+        Rectangle r;
+        synchronized (layouts) {
+            r = layouts.get(fingerprint);
+            r = r == null ? null : new Rectangle(r);
+        }
+        if (r == null) {
+            setLocation(getPreferredLocation());
+        } else if (!r.equals(getBounds())) {
+            setBounds(r);
+        }
+    }
+
+    /**
+     * @return a copy of the bounds used with each arrangement of screens, for
+     * saving
+     */
+    public LinkedHashMap<String, Rectangle> getLayouts() {
+        synchronized (layouts) {
+            LinkedHashMap<String, Rectangle> copy = new LinkedHashMap<>();
+            for (Map.Entry<String, Rectangle> e : layouts.entrySet()) {
+                copy.put(e.getKey(), new Rectangle(e.getValue()));
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * replaces the bounds used with each arrangement of screens, when loading
+     *
+     * @param l bounds by screen fingerprint, least recently used first
+     */
+    public void setLayouts(Map<String, Rectangle> l) {
+        synchronized (layouts) {
+            layouts.clear();
+            layouts.putAll(l);
+        }
+    }
+
     /**
      * gets the last user-set location of the note
      *
@@ -890,6 +1199,8 @@ public class Note extends JDialog {
      * @param scale scale as float 0.2-4.0
      */
     public void setTextScale(float scale) {
+        Profiling.TextScale event = new Profiling.TextScale();
+        event.begin();
         if (scale >= 0.99 && scale <= 1.01) {
             textScale = 1;
             text.setFont(Main.BASE_FONT);
@@ -897,6 +1208,13 @@ public class Note extends JDialog {
             textScale = scale < MIN_TEXT_SCALE ? MIN_TEXT_SCALE : scale > MAX_TEXT_SCALE ? MAX_TEXT_SCALE : scale;
             text.setFont(Main.BASE_FONT.deriveFont(Main.TEXT_SIZE * textScale));
         }
+        Main.changed(); //the text scale is saved
+        event.end();
+        if (event.shouldCommit()) {
+            event.scale = textScale;
+            event.textLength = getTextLength();
+            event.commit();
+        }
     }
 
     /**
@@ -925,6 +1243,8 @@ public class Note extends JDialog {
      * @param c color scheme (see format at the beginning of this file)
      */
     public void setColorScheme(Color[] c) {
+        Profiling.ColorScheme event = new Profiling.ColorScheme();
+        event.begin();
         savedBorderColor = c[1];
         wrapper1.setBackground(c[0]);
         // Modern thin border - Windows 11 style
@@ -939,11 +1259,213 @@ public class Note extends JDialog {
         text.setSelectedTextColor(c[7]);
         // Update scrollbar color based on theme
         jScrollPane1.getViewport().setBackground(c[4]);
-        formatMenu.updateTheme(c[4]);
+        if (findBar != null) {
+            findBar.updateTheme(c[4], c[5]);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.textLength = getTextLength();
+            event.commit();
+        }
+        NotebookWindow.notesChanged(); //the swatch in the notebook has to be repainted
+    }
+
+    /**
+     * computes a complete color scheme from a single color, as picked in the
+     * custom color selector
+     *
+     * @param c color
+     * @return color scheme (see format at the beginning of this file)
+     */
+    static Color[] createCustomScheme(Color c) {
+        //compute all colors from the selected color
+        float[] hsb = Color.RGBtoHSB(c.getRed(), c.getGreen(), c.getBlue(), null);
+        hsb[1] *= 0.69f; //reduce saturation
+        if (hsb[2] < 0.55f) {
+            //if brightness<55%, use dark settings
+            Color internal = new Color(Color.HSBtoRGB(hsb[0], hsb[1], hsb[2])),
+                    external = new Color(Color.HSBtoRGB(hsb[0], hsb[1], hsb[2] + 0.1f)),
+                    bar = external,
+                    buttons = new Color(Color.HSBtoRGB(hsb[0], hsb[1], hsb[2] + 0.3f)),
+                    lineBorder = new Color(Color.HSBtoRGB(hsb[0], hsb[1], hsb[2] + 0.15f)),
+                    text = new Color(255, 255, 255),
+                    selectionBk = hsb[1] < 0.01f ? new Color(192, 192, 192) : new Color(Color.HSBtoRGB(hsb[0]-0.05f, hsb[1]+0.2f, 1f)), //if low saturation, use alternative selection color instead of computed one
+                    selectedText = new Color(0, 0, 0);
+            Color[] customScheme = new Color[]{external, lineBorder, bar, buttons, internal, text, selectionBk, selectedText};
+            return customScheme;
+        } else {
+            //otherwise, use bright settings
+            Color internal = new Color(Color.HSBtoRGB(hsb[0], hsb[1], hsb[2])),
+                    external = new Color(Color.HSBtoRGB(hsb[0], hsb[1], hsb[2] - 0.04f)),
+                    bar = external,
+                    buttons = new Color(Color.HSBtoRGB(hsb[0], hsb[1], hsb[2] - 0.35f)),
+                    lineBorder = new Color(Color.HSBtoRGB(hsb[0], hsb[1], hsb[2] - 0.1f)),
+                    text = new Color(0, 0, 0),
+                    selectionBk = hsb[1] < 0.01f ? new Color(72, 72, 72) : new Color(Color.HSBtoRGB(hsb[0], hsb[1]+0.2f, 0.4f)), //if low saturation, use alternative selection color instead of computed one
+                    selectedText = new Color(255, 255, 255);
+            Color[] customScheme = new Color[]{external, lineBorder, bar, buttons, internal, text, selectionBk, selectedText};
+            return customScheme;
+        }
+    }
+
+    /**
+     * shows a popup menu listing some notes, clicking one of them brings it
+     * to front
+     *
+     * @param invoker component in whose space the menu is shown
+     * @param x x
+     * @param y y
+     * @param list notes to list
+     */
+    private void showNoteList(java.awt.Component invoker, int x, int y, List<Note> list) {
+        JPopupMenu menu = new JPopupMenu();
+        fillNoteList(menu, list);
+        menu.show(invoker, x, y);
+    }
+
+    private static void fillNoteList(JPopupMenu menu, List<Note> list) {
+        if (list.isEmpty()) {
+            JMenuItem none = new JMenuItem(getLocString("NO_NOTES"));
+            none.setEnabled(false);
+            menu.add(none);
+            return;
+        }
+        for (final Note n : list) {
+            String title = NoteIndex.getTitle(n);
+            JMenuItem i = new JMenuItem(title.isEmpty() ? getLocString("UNTITLED") : title);
+            i.setPreferredSize(new Dimension((int) (MENU_ITEM_WIDTH * Main.SCALE), (int) (MENU_ITEM_HEIGHT * Main.SCALE)));
+            i.addActionListener(new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    Main.show(n);
+                }
+            });
+            menu.add(i);
+        }
+    }
+
+    /**
+     * shows the find and replace bar, creating it if necessary
+     */
+    public void showFindBar() {
+        if (findBar == null) {
+            findBar = new FindBar(this, text);
+            findBar.updateTheme(text.getBackground(), text.getForeground());
+            findBarHolder.add(findBar, BorderLayout.CENTER);
+        }
+        if (!findBarHolder.isVisible()) {
+            findBarHolder.setVisible(true);
+            wrapper2.revalidate();
+        }
+        findBar.activate();
+    }
+
+    /**
+     * hides the find and replace bar and gives the focus back to the text
+     */
+    public void hideFindBar() {
+        if (findBar == null || !findBarHolder.isVisible()) {
+            return;
+        }
+        findBar.deactivate();
+        findBarHolder.setVisible(false);
+        wrapper2.revalidate();
+        text.requestFocusInWindow();
+    }
+
+    /**
+     * @return true if the find and replace bar is shown
+     */
+    public boolean isFindBarVisible() {
+        return findBar != null && findBarHolder.isVisible();
+    }
+
+    /**
+     * toggles a character style (bold, italic, underline) on the selected
+     * text, or for the text that will be typed if nothing is selected
+     *
+     * @param attribute StyleConstants.Bold, Italic or Underline
+     */
+    void toggleStyle(Object attribute) {
+        StyledDocument doc = text.getStyledDocument();
+        int start = text.getSelectionStart();
+        int end = text.getSelectionEnd();
+        MutableAttributeSet attr = new SimpleAttributeSet();
+        attr.addAttribute(attribute, !Boolean.TRUE.equals(text.getCharacterAttributes().getAttribute(attribute)));
+        if (start != end) {
+            doc.setCharacterAttributes(start, end - start, attr, false);
+        } else {
+            text.getInputAttributes().addAttributes(attr);
+        }
+    }
+
+    /**
+     * creates a new note a bit below and to the right of this one
+     */
+    void newNoteNextTo() {
+        Main.newNote().setLocation((int) (preferredLocation.x + 40 * Main.SCALE), (int) (preferredLocation.y + 40 * Main.SCALE));
+    }
+
+    /**
+     * selects all the text
+     */
+    void selectAll() {
+        text.selectAll();
+    }
+
+    /**
+     * undoes the last edit, if any
+     */
+    void undoEdit() {
+        if (undo.canUndo()) {
+            undo.undo();
+        }
+    }
+
+    /**
+     * redoes the last undone edit, if any
+     */
+    void redoEdit() {
+        if (undo.canRedo()) {
+            undo.redo();
+        }
+    }
+
+    /**
+     * runs a batch of changes to the document of this note as a single
+     * undoable edit. The text pane and the document listeners are detached
+     * from the document while the changes are applied, so views are rebuilt
+     * and listeners are notified once at the end instead of after every
+     * change.
+     *
+     * @param edits changes to apply, must only modify the current document
+     * @param start start of the range containing all the changes, in the
+     * changed document
+     * @param end end of that range
+     */
+    void applyBulkEdit(Runnable edits, int start, int end) {
+        StyledDocument doc = text.getStyledDocument();
+        CompoundEdit compound = new CompoundEdit();
+        bulkEdit = compound;
+        text.setDocument(new DefaultStyledDocument());
+        doc.removeDocumentListener(modifiedListener);
+        index.suspend();
+        try {
+            edits.run();
+        } finally {
+            bulkEdit = null;
+            compound.end();
+            doc.addDocumentListener(modifiedListener);
+            index.resume(Math.min(start, doc.getLength()), Math.min(end, doc.getLength()));
+            text.setDocument(doc);
+            undo.addEdit(compound);
+            textModified();
+        }
     }
     
     private int resizeBorder = (int)(40 * Main.SCALE);
-    private int startResizeX, startResizeY, startResizeWidth, startResizeHeight;
+    private int startResizeX, startResizeY, startResizeLeft, startResizeTop, startResizeWidth, startResizeHeight;
+    private int resizeDirection = 0; //edges being dragged, decided when the mouse is pressed
     
     /**
      * Determine which direction to resize based on mouse position
@@ -981,54 +1503,169 @@ public class Note extends JDialog {
      * Resize window based on mouse drag
      */
     private void resizeWindow(int mouseX, int mouseY) {
-        int direction = getResizeDirection(lastMouseX, lastMouseY);
+        int direction = resizeDirection;
         if (direction == 0) return;
         
+        //everything is relative to the bounds when the resize started, since the window lags behind the cursor by up to a frame
         int deltaX = mouseX - startResizeX;
         int deltaY = mouseY - startResizeY;
         
         int minWidth = (int)(MIN_NOTE_WIDTH * Main.SCALE);
         int minHeight = (int)(MIN_NOTE_HEIGHT * Main.SCALE);
         
-        int newX = getX();
-        int newY = getY();
+        int newX = startResizeLeft;
+        int newY = startResizeTop;
         int newWidth = startResizeWidth;
         int newHeight = startResizeHeight;
         
         if ((direction & 2) != 0) { // WEST
-            newX = getX() + deltaX;
+            newX = startResizeLeft + deltaX;
             newWidth = startResizeWidth - deltaX;
         }
         if ((direction & 8) != 0) { // EAST
             newWidth = startResizeWidth + deltaX;
         }
         if ((direction & 1) != 0) { // NORTH
-            newY = getY() + deltaY;
+            newY = startResizeTop + deltaY;
             newHeight = startResizeHeight - deltaY;
         }
         if ((direction & 4) != 0) { // SOUTH
             newHeight = startResizeHeight + deltaY;
         }
         
-        // Apply minimum size constraints
-        if (newWidth < minWidth) newWidth = minWidth;
-        if (newHeight < minHeight) newHeight = minHeight;
-        
-        // Keep WEST resize from shrinking too much
+        // Keep WEST resize from shrinking too much, the right edge stays where it is
         if ((direction & 2) != 0 && newWidth < minWidth) {
-            newX = getX() + (startResizeWidth - minWidth);
-            newWidth = minWidth;
+            newX = startResizeLeft + (startResizeWidth - minWidth);
         }
         
-        // Keep NORTH resize from shrinking too much
+        // Keep NORTH resize from shrinking too much, the bottom edge stays where it is
         if ((direction & 1) != 0 && newHeight < minHeight) {
-            newY = getY() + (startResizeHeight - minHeight);
-            newHeight = minHeight;
+            newY = startResizeTop + (startResizeHeight - minHeight);
         }
         
-        setLocation(newX, newY);
-        setSize(newWidth, newHeight);
+        // Apply minimum size constraints
+        if (newWidth < minWidth) newWidth = minWidth;
+        if (newHeight < minHeight) newHeight = minHeight;
+        
+        requestBounds(newX, newY, newWidth, newHeight);
     }
     
-    private int lastMouseX, lastMouseY;
+
+    /**
+     * The menu shown when the top bar is right-clicked. There is only one for
+     * all the notes: it's created the first time it's needed and bound to a
+     * note every time it's shown, since only one popup can be open at a time.
+     */
+    private static class ColorMenu extends JPopupMenu {
+
+        private static ColorMenu shared = null;
+        private Note target; //note the menu was last shown for, released when the menu is closed
+        private final JMenu backlinks; //notes linking to the target, filled in every time the menu is shown
+
+        /**
+         * shows the menu for a note
+         *
+         * @param n note the menu acts on
+         * @param invoker component in whose space the menu is shown
+         * @param x x
+         * @param y y
+         */
+        static void showFor(Note n, java.awt.Component invoker, int x, int y) {
+            Profiling.PopupMenu event = new Profiling.PopupMenu();
+            event.begin();
+            if (shared == null) {
+                shared = new ColorMenu();
+            }
+            shared.target = n;
+            shared.backlinks.removeAll();
+            fillNoteList(shared.backlinks.getPopupMenu(), NoteIndex.getBacklinks(n));
+            shared.show(invoker, x, y);
+            event.end();
+            if (event.shouldCommit()) {
+                event.menu = "color";
+                event.commit();
+            }
+        }
+
+        /**
+         * drops the references to the note the menu was shown for, so that the
+         * shared menu doesn't keep a deleted or hibernated note alive
+         */
+        private void release() {
+            if (isVisible()) {
+                return; //shown again in the meantime
+            }
+            target = null;
+            backlinks.removeAll();
+            setInvoker(null);
+        }
+
+        private ColorMenu() {
+            addPopupMenuListener(new PopupMenuListener() {
+                @Override
+                public void popupMenuWillBecomeVisible(PopupMenuEvent e) {
+                }
+
+                @Override
+                public void popupMenuWillBecomeInvisible(PopupMenuEvent e) {
+                    //menu items run their action after the menu is hidden, so the note is released after that
+                    SwingUtilities.invokeLater(() -> release());
+                }
+
+                @Override
+                public void popupMenuCanceled(PopupMenuEvent e) {
+                }
+            });
+            // Windows 11 style color palette - includes dark theme option
+            add(new ColorSelector(new Color[][]{YELLOW_SCHEME, ORANGE_SCHEME, BLUE_SCHEME, GREEN_SCHEME, PINK_SCHEME, PURPLE_SCHEME, RED_SCHEME, WHITE_SCHEME, CHARCOAL_SCHEME}) {
+                @Override
+                public void onColorSchemeSelected(Color[] scheme) {
+                    target.setColorScheme(scheme);
+                    ColorMenu.this.setVisible(false);
+                    Main.requestSave();
+                }
+            });
+            //custom color selector
+            add(new CustomColorSelector() {
+                @Override
+                public void onColorSelected(Color c) {
+                    target.setColorScheme(createCustomScheme(c));
+                    ColorMenu.this.setVisible(false);
+                    Main.requestSave();
+                }
+            });
+            add(new JPopupMenu.Separator());
+            backlinks = new JMenu(getLocString("BACKLINKS"));
+            backlinks.setPreferredSize(new Dimension((int) (MENU_ITEM_WIDTH * Main.SCALE), (int) (MENU_ITEM_HEIGHT * Main.SCALE)));
+            add(backlinks);
+            JMenuItem stowItem = new JMenuItem(getLocString("MENU_STOW"));
+            stowItem.setPreferredSize(new Dimension((int) (MENU_ITEM_WIDTH * Main.SCALE), (int) (MENU_ITEM_HEIGHT * Main.SCALE)));
+            stowItem.addActionListener(new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    Main.stow(target);
+                }
+            });
+            add(stowItem);
+            JMenuItem notebookItem = new JMenuItem(getLocString("MENU_NOTEBOOK"));
+            notebookItem.setPreferredSize(new Dimension((int) (MENU_ITEM_WIDTH * Main.SCALE), (int) (MENU_ITEM_HEIGHT * Main.SCALE)));
+            notebookItem.addActionListener(new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    NotebookWindow.open();
+                }
+            });
+            add(notebookItem);
+            add(new JPopupMenu.Separator());
+            JMenuItem m = new JMenuItem(getLocString("ABOUT"));
+            m.setPreferredSize(new Dimension((int) (MENU_ITEM_WIDTH * Main.SCALE), (int) (MENU_ITEM_HEIGHT * Main.SCALE)));
+            m.addActionListener(new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    new AboutDialog(null, true).setVisible(true);
+                }
+            });
+            add(m);
+        }
+    }
 }
@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Paints the rounded background, the header and the +/X buttons of the notes.
+ *
+ * The antialiased parts are rendered once into images and blitted after
+ * that. Images are cached by part, state, size, color and device scale, so a
+ * different color scheme or a resize simply misses the cache, and notes that
+ * look the same share them. The rounded backgrounds are cached as strips as
+ * tall as the corners, the rest is a plain rectangle.
+ *
+ * Only used on the EDT.
+ */
+final class NoteChrome {
+
+    static final int IDLE = 0, HOVER = 1, PRESSED = 2; //button states
+
+    private static final int BODY_TOP = 0, BODY_BOTTOM = 1, BODY_FULL = 2, HEADER = 3, NEW_BUTTON = 4, DELETE_BUTTON = 5;
+    private static final int MAX_CACHED_PIXELS = 4 << 20; //about 16MB
+    private static final Color NEW_HOVER = new Color(0, 0, 0, 20), NEW_PRESSED = new Color(0, 0, 0, 40),
+            DELETE_HOVER = new Color(232, 17, 35, 160), DELETE_PRESSED = new Color(232, 17, 35, 200);
+
+    private static final LinkedHashMap<Key, BufferedImage> CACHE = new LinkedHashMap<>(32, 0.75f, true);
+    private static long cachedPixels = 0;
+
+    private NoteChrome() {
+    }
+
+    /**
+     * paints a background with 4 rounded corners filling the component
+     *
+     * @param c component
+     * @param g graphics
+     * @param bg color
+     * @param radius arc size, already scaled
+     */
+    static void paintBody(Component c, Graphics g, final Color bg, final int radius) {
+        final int w = c.getWidth(), h = c.getHeight();
+        if (w <= 0 || h <= 0) {
+            return;
+        }
+        if (h < radius * 2) {
+            blit(c, g, BODY_FULL, 0, w, h, bg, 0, 0, (Graphics2D g2) -> {
+                g2.setColor(bg);
+                g2.fillRoundRect(0, 0, w, h, radius, radius);
+            });
+            return;
+        }
+        //the corners only affect the first and last radius/2 rows, so the strips don't depend on the height
+        blit(c, g, BODY_TOP, 0, w, radius, bg, 0, 0, (Graphics2D g2) -> {
+            g2.setColor(bg);
+            g2.fillRoundRect(0, 0, w, radius * 2, radius, radius);
+        });
+        blit(c, g, BODY_BOTTOM, 0, w, radius, bg, 0, h - radius, (Graphics2D g2) -> {
+            g2.setColor(bg);
+            g2.fillRoundRect(0, -radius, w, radius * 2, radius, radius);
+        });
+        g.setColor(bg);
+        g.fillRect(0, radius, w, h - radius * 2);
+    }
+
+    /**
+     * paints a background with the top corners of the header rounded
+     *
+     * @param c component
+     * @param g graphics
+     * @param bg color
+     * @param headerHeight height of the header, already scaled
+     * @param radius arc size, already scaled
+     */
+    static void paintHeader(Component c, Graphics g, final Color bg, final int headerHeight, final int radius) {
+        final int w = c.getWidth(), h = c.getHeight();
+        if (w <= 0 || h <= 0) {
+            return;
+        }
+        final int strip = Math.min(h, Math.max(headerHeight, radius));
+        blit(c, g, HEADER, 0, w, strip, bg, 0, 0, (Graphics2D g2) -> {
+            g2.setColor(bg);
+            g2.fillRoundRect(0, 0, w, headerHeight, radius, radius);
+            g2.fillRect(0, radius, w, strip - radius);
+        });
+        if (h > strip) {
+            g.setColor(bg);
+            g.fillRect(0, strip, w, h - strip);
+        }
+    }
+
+    /**
+     * paints the + button
+     *
+     * @param c button
+     * @param g graphics
+     * @param state IDLE, HOVER or PRESSED
+     */
+    static void paintNewButton(Component c, Graphics g, final int state) {
+        final int w = c.getWidth(), h = c.getHeight();
+        final Color fg = c.getForeground();
+        blit(c, g, NEW_BUTTON, state, w, h, fg, 0, 0, (Graphics2D g2) -> {
+            if (state != IDLE) {
+                g2.setColor(state == PRESSED ? NEW_PRESSED : NEW_HOVER);
+                g2.fillRoundRect(2, 2, w - 4, h - 4, 6, 6);
+            }
+            int cx = w / 2, cy = h / 2;
+            int arm = (int) (Math.min(w, h) / 3f * 0.4f);
+            g2.setStroke(new BasicStroke(Math.max(1.5f, 1.2f * Main.SCALE), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            g2.setColor(fg);
+            g2.drawLine(cx - arm, cy, cx + arm, cy);
+            g2.drawLine(cx, cy - arm, cx, cy + arm);
+        });
+    }
+
+    /**
+     * paints the X button
+     *
+     * @param c button
+     * @param g graphics
+     * @param state IDLE, HOVER or PRESSED
+     */
+    static void paintDeleteButton(Component c, Graphics g, final int state) {
+        final int w = c.getWidth(), h = c.getHeight();
+        final Color fg = c.getForeground();
+        blit(c, g, DELETE_BUTTON, state, w, h, fg, 0, 0, (Graphics2D g2) -> {
+            if (state != IDLE) {
+                g2.setColor(state == PRESSED ? DELETE_PRESSED : DELETE_HOVER);
+                g2.fillRoundRect(2, 2, w - 4, h - 4, 6, 6);
+            }
+            int cx = w / 2, cy = h / 2;
+            int arm = (int) (Math.min(w, h) / 3f * 0.4f);
+            g2.setStroke(new BasicStroke(Math.max(1.5f, 1.2f * Main.SCALE), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            g2.setColor(state == IDLE ? fg : Color.WHITE);
+            g2.drawLine(cx - arm, cy - arm, cx + arm, cy + arm);
+            g2.drawLine(cx - arm, cy + arm, cx + arm, cy - arm);
+        });
+    }
+
+    /**
+     * drops all the cached images
+     */
+    static void clearCache() {
+        CACHE.clear();
+        cachedPixels = 0;
+    }
+
+    private interface Painter {
+
+        void paint(Graphics2D g2);
+    }
+
+    /**
+     * draws a cached image, rendering it first if it's not in the cache
+     */
+    private static void blit(Component c, Graphics g, int part, int state, int w, int h, Color color, int x, int y, Painter painter) {
+        if (w <= 0 || h <= 0) {
+            return;
+        }
+        //render at device resolution, so that the images stay sharp when java2d scales the ui
+        AffineTransform t = ((Graphics2D) g).getTransform();
+        double sx = Math.abs(t.getScaleX()), sy = Math.abs(t.getScaleY());
+        if (sx < 1 || sy < 1) {
+            sx = 1;
+            sy = 1;
+        }
+        Key k = new Key(part, state, w, h, color.getRGB(), sx, sy);
+        BufferedImage img = CACHE.get(k);
+        if (img == null) {
+            int iw = (int) Math.ceil(w * sx), ih = (int) Math.ceil(h * sy);
+            GraphicsConfiguration gc = c.getGraphicsConfiguration();
+            img = gc != null ? gc.createCompatibleImage(iw, ih, Transparency.TRANSLUCENT) : new BufferedImage(iw, ih, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D g2 = img.createGraphics();
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.scale(sx, sy);
+            g2.clipRect(0, 0, w, h);
+            painter.paint(g2);
+            g2.dispose();
+            CACHE.put(k, img);
+            cachedPixels += (long) iw * ih;
+            Iterator<Map.Entry<Key, BufferedImage>> i = CACHE.entrySet().iterator();
+            while (cachedPixels > MAX_CACHED_PIXELS && CACHE.size() > 1 && i.hasNext()) { //evict least recently used
+                BufferedImage old = i.next().getValue();
+                cachedPixels -= (long) old.getWidth() * old.getHeight();
+                i.remove();
+            }
+        }
+        g.drawImage(img, x, y, w, h, null);
+    }
+
+    private static final class Key {
+
+        private final int part, state, w, h, rgb;
+        private final double sx, sy;
+
+        Key(int part, int state, int w, int h, int rgb, double sx, double sy) {
+            this.part = part;
+            this.state = state;
+            this.w = w;
+            this.h = h;
+            this.rgb = rgb;
+            this.sx = sx;
+            this.sy = sy;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return part == k.part && state == k.state && w == k.w && h == k.h && rgb == k.rgb && sx == k.sx && sy == k.sy;
+        }
+
+        @Override
+        public int hashCode() {
+            int r = part;
+            r = 31 * r + state;
+            r = 31 * r + w;
+            r = 31 * r + h;
+            r = 31 * r + rgb;
+            r = 31 * r + Double.hashCode(sx);
+            return 31 * r + Double.hashCode(sy);
+        }
+    }
+}
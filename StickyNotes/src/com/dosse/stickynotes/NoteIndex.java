@@ -0,0 +1,537 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.Segment;
+
+/**
+ * Index of the #tags and [[links]] found in the text of the notes.
+ *
+ * Each note has a Tracker listening to its document. Tokens are cached per
+ * paragraph element, so an edit only rescans the paragraphs it touched, and
+ * the rescan itself is deferred and coalesced so that typing only pays for a
+ * set insertion. Lookups by tag, by link target and by title are hash lookups.
+ *
+ * Tokens are stored as "#tag" and "[[target", lowercase.
+ */
+public final class NoteIndex {
+
+    private static final int FLUSH_DELAY_MS = 300; //delay after the last edit before dirty paragraphs are rescanned
+    private static final int MAX_TITLE_LENGTH = 100; //titles are the first line of a note, cut to this length
+    private static final int TOKEN_AT_WINDOW = 200; //how far tokenAt looks around the given offset
+
+    private static final HashMap<String, LinkedHashSet<Note>> TOKENS = new HashMap<>(); //token -> notes containing it
+    private static final HashMap<String, LinkedHashSet<Note>> TITLES = new HashMap<>(); //lowercase title -> notes with that title
+    private static final Map<Note, Tracker> TRACKERS = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    private NoteIndex() {
+    }
+
+    /**
+     * starts indexing the document of a note
+     *
+     * @param n note
+     * @param doc document of the note
+     * @return the tracker, already listening to doc
+     */
+    static Tracker track(Note n, Document doc) {
+        Tracker t = new Tracker(n, doc);
+        TRACKERS.put(n, t);
+        doc.addDocumentListener(t);
+        return t;
+    }
+
+    /**
+     * removes a note from the index, for instance when it's deleted
+     *
+     * @param n note
+     */
+    static void remove(Note n) {
+        Tracker t = TRACKERS.remove(n);
+        if (t != null) {
+            t.dispose();
+        }
+    }
+
+    /**
+     * @param tag tag, with or without leading #
+     * @return notes containing the tag, in indexing order
+     */
+    public static List<Note> getNotesWithTag(String tag) {
+        return lookup(TOKENS, "#" + normalize(tag.startsWith("#") ? tag.substring(1) : tag));
+    }
+
+    /**
+     * @param title title of a note, as written inside [[ ]]
+     * @return notes whose title matches
+     */
+    public static List<Note> getNotesWithTitle(String title) {
+        return lookup(TITLES, normalize(title));
+    }
+
+    /**
+     * @param n note
+     * @return notes containing a [[link]] to the title of n, excluding n
+     */
+    public static List<Note> getBacklinks(Note n) {
+        Tracker t = TRACKERS.get(n);
+        if (t == null) {
+            return Collections.emptyList();
+        }
+        String title = t.getTitleKey();
+        if (title.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Note> ret = lookup(TOKENS, "[[" + title);
+        ret.remove(n);
+        return ret;
+    }
+
+    /**
+     * @param n note
+     * @return first line of the note, as used to resolve [[links]]
+     */
+    public static String getTitle(Note n) {
+        Tracker t = TRACKERS.get(n);
+        return t == null ? "" : t.getTitle();
+    }
+
+    /**
+     * @param n note
+     * @return all the tokens in the note, for persistence
+     */
+    static String[] getTokens(Note n) {
+        Tracker t = TRACKERS.get(n);
+        return t == null ? new String[0] : t.getTokens();
+    }
+
+    /**
+     * seeds the index of a note with persisted tokens instead of scanning its
+     * text. The paragraph cache of the note is built lazily on its first
+     * edit.
+     *
+     * @param n note
+     * @param tokens tokens as returned by getTokens
+     */
+    static void seed(Note n, String[] tokens) {
+        Tracker t = TRACKERS.get(n);
+        if (t != null && tokens != null) {
+            t.seed(tokens);
+        }
+    }
+
+    /**
+     * finds the tag or link at a position in a document
+     *
+     * @param doc document
+     * @param offset position
+     * @return the token ("#tag" or "[[target") or null if there is none at
+     * offset
+     */
+    public static String tokenAt(Document doc, int offset) {
+        Element p = doc.getDefaultRootElement().getElement(doc.getDefaultRootElement().getElementIndex(offset));
+        int start = Math.max(p.getStartOffset(), offset - TOKEN_AT_WINDOW);
+        int end = Math.min(p.getEndOffset(), Math.min(doc.getLength(), offset + TOKEN_AT_WINDOW));
+        Segment s = new Segment();
+        try {
+            doc.getText(start, end - start, s);
+        } catch (BadLocationException e) {
+            return null;
+        }
+        int rel = offset - start;
+        String[] found = new String[1];
+        scan(s.array, s.offset, s.count, (String token, int tStart, int tEnd) -> {
+            if (rel >= tStart - s.offset && rel < tEnd - s.offset) {
+                found[0] = token;
+            }
+        });
+        return found[0];
+    }
+
+    private static List<Note> lookup(HashMap<String, LinkedHashSet<Note>> map, String key) {
+        synchronized (NoteIndex.class) {
+            LinkedHashSet<Note> s = map.get(key);
+            return s == null ? new ArrayList<>() : new ArrayList<>(s);
+        }
+    }
+
+    private static synchronized void add(HashMap<String, LinkedHashSet<Note>> map, String key, Note n) {
+        map.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(n);
+    }
+
+    private static synchronized void remove(HashMap<String, LinkedHashSet<Note>> map, String key, Note n) {
+        Set<Note> s = map.get(key);
+        if (s != null) {
+            s.remove(n);
+            if (s.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    private static String normalize(String s) {
+        return s.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private interface TokenSink {
+
+        void token(String token, int start, int end);
+    }
+
+    private static boolean isTagChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '-';
+    }
+
+    /**
+     * finds the tokens in a range of characters
+     *
+     * @param a characters
+     * @param off start of the range
+     * @param len length of the range
+     * @param sink receives each token with its start and end index in a
+     */
+    private static void scan(char[] a, int off, int len, TokenSink sink) {
+        int end = off + len;
+        for (int i = off; i < end; i++) {
+            char c = a[i];
+            if (c == '#' && (i == off || Character.isWhitespace(a[i - 1])) && i + 1 < end && isTagChar(a[i + 1])) {
+                int j = i + 1;
+                while (j < end && isTagChar(a[j])) {
+                    j++;
+                }
+                sink.token("#" + new String(a, i + 1, j - i - 1).toLowerCase(Locale.ROOT), i, j);
+                i = j - 1;
+            } else if (c == '[' && i + 1 < end && a[i + 1] == '[') {
+                int j = i + 2;
+                while (j + 1 < end && a[j] != '\n' && !(a[j] == ']' && a[j + 1] == ']')) {
+                    j++;
+                }
+                if (j + 1 < end && a[j] == ']') {
+                    String target = normalize(new String(a, i + 2, j - i - 2));
+                    if (!target.isEmpty()) {
+                        sink.token("[[" + target, i, j + 2);
+                    }
+                    i = j + 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * keeps the index up to date with the document of a note
+     */
+    static final class Tracker implements DocumentListener {
+
+        private static final String[] NONE = new String[0];
+
+        private final Note note;
+        private Document doc; //null while the note is hibernated
+        private final IdentityHashMap<Element, String[]> paragraphs = new IdentityHashMap<>(); //tokens of each paragraph, as of the last scan
+        private final HashMap<String, Integer> counts = new HashMap<>(); //occurrences of each token in the note
+        private final Set<Element> dirty = Collections.newSetFromMap(new IdentityHashMap<>()); //paragraphs that need rescanning
+        private final Timer flushTimer;
+        private boolean cold = false; //true if counts were seeded from storage and paragraphs is not populated yet
+        private String title = "", titleKey = "";
+
+        private Tracker(Note note, Document doc) {
+            this.note = note;
+            this.doc = doc;
+            flushTimer = new Timer(FLUSH_DELAY_MS, e -> flush());
+            flushTimer.setRepeats(false);
+        }
+
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            changed(e, true);
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            changed(e, false);
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+            //formatting doesn't change tokens
+        }
+
+        private synchronized void changed(DocumentEvent e, boolean insert) {
+            Element root = doc.getDefaultRootElement();
+            if (cold) {
+                rebuild(); //first edit after seeding: the paragraph cache is empty
+            } else {
+                DocumentEvent.ElementChange ec = e.getChange(root);
+                if (ec != null) {
+                    for (Element removed : ec.getChildrenRemoved()) {
+                        dirty.remove(removed);
+                        apply(paragraphs.remove(removed), -1);
+                    }
+                    dirty.addAll(Arrays.asList(ec.getChildrenAdded()));
+                }
+                dirty.add(root.getElement(root.getElementIndex(e.getOffset())));
+                if (insert) {
+                    dirty.add(root.getElement(root.getElementIndex(e.getOffset() + e.getLength())));
+                }
+            }
+            flushTimer.restart();
+        }
+
+        /**
+         * forgets the tokens and marks every paragraph dirty, so that the whole
+         * document is scanned again
+         */
+        private void rebuild() {
+            cold = false;
+            for (String token : counts.keySet()) {
+                remove(TOKENS, token, note);
+            }
+            counts.clear();
+            paragraphs.clear();
+            Element root = doc.getDefaultRootElement();
+            for (int i = 0; i < root.getElementCount(); i++) {
+                dirty.add(root.getElement(i));
+            }
+        }
+
+        /**
+         * rescans the dirty paragraphs
+         */
+        private synchronized void flush() {
+            if (dirty.isEmpty() || doc == null) {
+                return;
+            }
+            Element root = doc.getDefaultRootElement();
+            Element first = root.getElement(0);
+            boolean titleChanged = false;
+            Segment s = new Segment();
+            for (Element p : dirty) {
+                int idx = root.getElementIndex(p.getStartOffset());
+                if (root.getElement(idx) != p) {
+                    continue; //paragraph was removed after being marked dirty
+                }
+                try {
+                    doc.getText(p.getStartOffset(), Math.min(p.getEndOffset(), doc.getLength()) - p.getStartOffset(), s);
+                } catch (BadLocationException ex) {
+                    continue;
+                }
+                ArrayList<String> found = new ArrayList<>();
+                scan(s.array, s.offset, s.count, (String token, int start, int end) -> found.add(token));
+                String[] tokens = found.isEmpty() ? NONE : found.toArray(new String[found.size()]);
+                String[] old = paragraphs.put(p, tokens);
+                if (old == null || !Arrays.equals(old, tokens)) {
+                    apply(old, -1);
+                    apply(tokens, 1);
+                }
+                if (p == first) {
+                    titleChanged = true;
+                }
+            }
+            dirty.clear();
+            if (titleChanged) {
+                updateTitle();
+            }
+        }
+
+        /**
+         * reads the first line of the note and reindexes it as its title
+         */
+        private void updateTitle() {
+            if (doc == null) {
+                return;
+            }
+            Element first = doc.getDefaultRootElement().getElement(0);
+            String t;
+            try {
+                t = doc.getText(first.getStartOffset(), Math.min(first.getEndOffset(), doc.getLength()) - first.getStartOffset()).trim();
+            } catch (BadLocationException ex) {
+                t = "";
+            }
+            title = t.length() > MAX_TITLE_LENGTH ? t.substring(0, MAX_TITLE_LENGTH) : t;
+            String key = normalize(title);
+            if (!key.equals(titleKey)) {
+                if (!titleKey.isEmpty()) {
+                    remove(TITLES, titleKey, note);
+                }
+                titleKey = key;
+                if (!key.isEmpty()) {
+                    add(TITLES, key, note);
+                }
+            }
+        }
+
+        private void apply(String[] tokens, int delta) {
+            if (tokens == null) {
+                return;
+            }
+            for (String token : tokens) {
+                int c = counts.getOrDefault(token, 0) + delta;
+                if (c <= 0) {
+                    counts.remove(token);
+                    remove(TOKENS, token, note);
+                } else {
+                    if (c == delta) {
+                        add(TOKENS, token, note);
+                    }
+                    counts.put(token, c);
+                }
+            }
+        }
+
+        private synchronized void seed(String[] tokens) {
+            if (!dirty.isEmpty() || cold) {
+                //the text was just set and not scanned yet, trust the stored tokens instead
+                dirty.clear();
+                paragraphs.clear();
+                for (String token : counts.keySet()) {
+                    remove(TOKENS, token, note);
+                }
+                counts.clear();
+                apply(tokens, 1);
+                cold = true;
+                //the title is cheap to compute and is needed to resolve links to this note
+                updateTitle();
+            }
+        }
+
+        /**
+         * stops listening to the current document, keeping the tokens found so
+         * far. Used when a note releases its document to hibernate.
+         */
+        synchronized void detach() {
+            if (doc == null) {
+                return;
+            }
+            flushTimer.stop();
+            flush();
+            doc.removeDocumentListener(this);
+            doc = null;
+            paragraphs.clear();
+            cold = true;
+        }
+
+        /**
+         * starts listening to a new document with the same text as the one
+         * that was detached. Like after seeding, the paragraph cache is
+         * rebuilt on the first edit.
+         *
+         * @param d document
+         */
+        synchronized void attach(Document d) {
+            if (doc != null) {
+                detach();
+            }
+            doc = d;
+            d.addDocumentListener(this);
+            cold = true;
+        }
+
+        /**
+         * stops listening to the document during a batch of changes, so that
+         * they're handled once by resume instead of one event at a time
+         */
+        synchronized void suspend() {
+            if (doc != null) {
+                doc.removeDocumentListener(this);
+            }
+        }
+
+        /**
+         * starts listening again after a batch of changes: the paragraphs
+         * removed by the changes are forgotten and the ones in the changed
+         * range are rescanned
+         *
+         * @param start start of the changed range, in the changed document
+         * @param end end of the changed range, in the changed document
+         */
+        synchronized void resume(int start, int end) {
+            if (doc == null) {
+                return;
+            }
+            doc.addDocumentListener(this);
+            Element root = doc.getDefaultRootElement();
+            if (cold) {
+                rebuild();
+            } else {
+                for (Iterator<Map.Entry<Element, String[]>> i = paragraphs.entrySet().iterator(); i.hasNext();) {
+                    Map.Entry<Element, String[]> p = i.next();
+                    if (root.getElement(root.getElementIndex(p.getKey().getStartOffset())) != p.getKey()) {
+                        apply(p.getValue(), -1); //paragraph was removed
+                        i.remove();
+                    }
+                }
+                for (int i = root.getElementIndex(start), last = root.getElementIndex(end); i <= last; i++) {
+                    dirty.add(root.getElement(i));
+                }
+            }
+            flushTimer.restart();
+        }
+
+        private synchronized String[] getTokens() {
+            if (!dirty.isEmpty()) {
+                flush();
+            }
+            ArrayList<String> ret = new ArrayList<>();
+            for (Map.Entry<String, Integer> e : counts.entrySet()) {
+                for (int i = 0; i < e.getValue(); i++) {
+                    ret.add(e.getKey());
+                }
+            }
+            return ret.toArray(new String[ret.size()]);
+        }
+
+        private synchronized String getTitle() {
+            return title;
+        }
+
+        private synchronized String getTitleKey() {
+            return titleKey;
+        }
+
+        private synchronized void dispose() {
+            flushTimer.stop();
+            if (doc != null) {
+                doc.removeDocumentListener(this);
+            }
+            for (String token : counts.keySet()) {
+                remove(TOKENS, token, note);
+            }
+            if (!titleKey.isEmpty()) {
+                remove(TITLES, titleKey, note);
+            }
+            counts.clear();
+            paragraphs.clear();
+            dirty.clear();
+        }
+    }
+}
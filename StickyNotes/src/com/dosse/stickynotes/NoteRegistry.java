@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The notes, in z-order, without locks.
+ *
+ * Each note has a stamp from a counter, and bringing a note to the front just
+ * gives it a new stamp, so focus changes are O(1) instead of moving the note
+ * to the end of a list. Membership is a concurrent map, adding and removing
+ * notes don't block anyone either.
+ *
+ * Readers get an array of the notes sorted by stamp (topmost last), which is
+ * built when it's first needed after a change and then shared until the next
+ * change. Readers never block and never see a half-made change, but a snapshot
+ * can be out of date as soon as it's returned, like a copy of a list made
+ * under a lock would be.
+ */
+final class NoteRegistry {
+
+    private static final Note[] EMPTY = new Note[0];
+
+    /**
+     * a sorted array of the notes, valid as long as the version hasn't changed
+     */
+    private static final class Snapshot {
+
+        final long version;
+        final Note[] notes;
+
+        Snapshot(long version, Note[] notes) {
+            this.version = version;
+            this.notes = notes;
+        }
+    }
+
+    /**
+     * z-order stamp of a note, higher is in front
+     */
+    private static final class Entry {
+
+        final Note note;
+        volatile long z;
+
+        Entry(Note note, long z) {
+            this.note = note;
+            this.z = z;
+        }
+    }
+
+    private final ConcurrentHashMap<Note, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong(), version = new AtomicLong();
+    private volatile Snapshot snapshot = new Snapshot(0, EMPTY);
+
+    /**
+     * adds a note in front of the others, if it's not already there
+     *
+     * @param n note
+     */
+    void add(Note n) {
+        if (entries.putIfAbsent(n, new Entry(n, clock.incrementAndGet())) == null) {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * @param n note
+     * @return true if the note was there
+     */
+    boolean remove(Note n) {
+        if (entries.remove(n) != null) {
+            version.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * moves a note in front of the others. Does nothing if it's already the
+     * topmost one or if it's not in the registry.
+     *
+     * @param n note
+     */
+    void bringToFront(Note n) {
+        Entry e = entries.get(n);
+        if (e != null && e.z != clock.get()) {
+            e.z = clock.incrementAndGet();
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return the notes in z-order, topmost last. The array is shared and must
+     * not be modified.
+     */
+    Note[] snapshot() {
+        Snapshot s = snapshot;
+        long v = version.get();
+        if (s.version == v) {
+            return s.notes;
+        }
+        //build a new one. if the notes change in the meantime, it's published with an old version and the next reader builds it again
+        Entry[] es = entries.values().toArray(new Entry[0]);
+        long[] keys = new long[es.length];
+        for (int i = 0; i < es.length; i++) {
+            keys[i] = es[i].z;
+        }
+        Integer[] order = new Integer[es.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (Integer a, Integer b) -> Long.compare(keys[a], keys[b])); //z read once per note, so the order is consistent while sorting
+        Note[] ns = new Note[es.length];
+        for (int i = 0; i < ns.length; i++) {
+            ns[i] = es[order[i]].note;
+        }
+        snapshot = new Snapshot(v, ns);
+        return ns;
+    }
+
+    /**
+     * @return a copy of the notes in z-order, topmost last
+     */
+    ArrayList<Note> toList() {
+        return new ArrayList<>(Arrays.asList(snapshot()));
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.text.DateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.ResourceBundle;
+import java.util.WeakHashMap;
+import javax.swing.AbstractListModel;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JFrame;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.ListCellRenderer;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.WindowConstants;
+
+/**
+ * The Notebook: a single window listing all the notes, including the ones
+ * that are not on the desktop.
+ *
+ * The list is a JList with a fixed cell height, so only the visible rows are
+ * ever measured or painted, and the text shown for each row is computed once
+ * per modification of the note and cached by the renderer.
+ */
+public class NotebookWindow extends JFrame {
+
+    private static final ResourceBundle locBundle = ResourceBundle.getBundle("com/dosse/stickynotes/locale/locale");
+    private static final int DEFAULT_WIDTH = (int) (360 * Main.SCALE), DEFAULT_HEIGHT = (int) (480 * Main.SCALE);
+    private static final int ROW_HEIGHT = (int) (44 * Main.SCALE);
+    private static final int PREVIEW_LENGTH = 120; //characters read from each note for the preview
+
+    private static NotebookWindow instance = null;
+    private static boolean refreshPending = false;
+
+    private final NotesModel model = new NotesModel();
+    private final JList<Note> list;
+
+    /**
+     * shows the notebook, creating it if necessary
+     */
+    public static void open() {
+        if (instance == null) {
+            instance = new NotebookWindow();
+            instance.setLocationRelativeTo(null);
+        }
+        instance.model.refresh();
+        instance.setVisible(true);
+        instance.toFront();
+    }
+
+    /**
+     * called by Main whenever notes are created, deleted, shown or sent to the
+     * notebook. Refreshes are coalesced and done on the EDT.
+     */
+    static void notesChanged() {
+        if (instance == null || refreshPending) {
+            return;
+        }
+        refreshPending = true;
+        SwingUtilities.invokeLater(() -> {
+            refreshPending = false;
+            if (instance != null && instance.isVisible()) {
+                instance.model.refresh();
+            }
+        });
+    }
+
+    /**
+     * @return true if the notebook is currently on screen
+     */
+    static boolean isOpen() {
+        return instance != null && instance.isVisible();
+    }
+
+    private NotebookWindow() {
+        setTitle(locBundle.getString("NOTEBOOK"));
+        setIconImage(Note.loadImage("/com/dosse/stickynotes/icon.png"));
+        setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        ScreenGeometry.watch(this); //keeps noticing display changes when all the notes are in the notebook
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                dispose();
+                if (!Main.hasVisibleNotes()) {
+                    //nothing left on screen, closing the notebook closes the app like alt+f4 on a note
+                    Main.flushSaves();
+                    System.exit(0);
+                }
+            }
+
+            @Override
+            public void windowActivated(WindowEvent e) {
+                list.repaint(); //previews of modified notes are recomputed lazily by the renderer
+            }
+        });
+
+        list = new JList<>(model);
+        list.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        list.setFixedCellHeight(ROW_HEIGHT);
+        list.setCellRenderer(new NoteCellRenderer());
+        list.setBackground(new Color(251, 251, 251));
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2 && e.getButton() == MouseEvent.BUTTON1) {
+                    openSelected();
+                }
+            }
+        });
+        list.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+                    openSelected();
+                    e.consume();
+                }
+            }
+        });
+        JScrollPane scroll = new JScrollPane(list);
+        scroll.setBorder(null);
+        scroll.getVerticalScrollBar().setUnitIncrement(ROW_HEIGHT / 2);
+
+        JButton newNote = new JButton(locBundle.getString("NOTEBOOK_NEW"));
+        newNote.addActionListener((ActionEvent e) -> Main.newNote());
+        JButton open = new JButton(locBundle.getString("NOTEBOOK_OPEN"));
+        open.addActionListener((ActionEvent e) -> openSelected());
+        JButton stow = new JButton(locBundle.getString("NOTEBOOK_STOW"));
+        stow.addActionListener((ActionEvent e) -> {
+            for (Note n : list.getSelectedValuesList()) {
+                Main.stow(n);
+            }
+        });
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, (int) (6 * Main.SCALE), (int) (6 * Main.SCALE)));
+        buttons.add(newNote);
+        buttons.add(stow);
+        buttons.add(open);
+
+        getContentPane().setLayout(new BorderLayout());
+        getContentPane().add(scroll, BorderLayout.CENTER);
+        getContentPane().add(buttons, BorderLayout.SOUTH);
+        setPreferredSize(new Dimension(DEFAULT_WIDTH, DEFAULT_HEIGHT));
+        pack();
+    }
+
+    private void openSelected() {
+        for (Note n : list.getSelectedValuesList()) {
+            Main.show(n);
+        }
+    }
+
+    /**
+     * list model over a snapshot of the notes, taken on refresh
+     */
+    private static class NotesModel extends AbstractListModel<Note> {
+
+        private Note[] notes = new Note[0];
+
+        void refresh() {
+            Note[] old = notes;
+            notes = Main.getNotes().toArray(new Note[0]);
+            //most recently modified first, z-order changes too often to be useful here
+            Arrays.sort(notes, (Note a, Note b) -> Long.compare(b.getLastModified(), a.getLastModified()));
+            if (old.length == notes.length) {
+                if (notes.length > 0) {
+                    fireContentsChanged(this, 0, notes.length - 1);
+                }
+                return;
+            }
+            if (old.length > 0) {
+                fireIntervalRemoved(this, 0, old.length - 1);
+            }
+            if (notes.length > 0) {
+                fireIntervalAdded(this, 0, notes.length - 1);
+            }
+        }
+
+        @Override
+        public int getSize() {
+            return notes.length;
+        }
+
+        @Override
+        public Note getElementAt(int index) {
+            return notes[index];
+        }
+    }
+
+    /**
+     * what the renderer shows for a note, valid as long as the note is not
+     * modified
+     */
+    private static class RowInfo {
+
+        long stamp;
+        String preview, meta;
+        Color swatch;
+        boolean stowed;
+    }
+
+    /**
+     * paints a row by hand instead of laying out labels, reusing cached row
+     * info when the note (text, stowed state, color) hasn't changed since the
+     * last time it was painted
+     */
+    private static class NoteCellRenderer extends JPanel implements ListCellRenderer<Note> {
+
+        private static final Color SELECTION = new Color(204, 228, 247), STOWED_TEXT = new Color(128, 128, 128), TEXT = new Color(38, 38, 38), META_TEXT = new Color(110, 110, 110), LINE = new Color(232, 232, 232);
+        private final WeakHashMap<Note, RowInfo> cache = new WeakHashMap<>();
+        private final DateFormat dateFormat = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT);
+        private RowInfo row;
+        private boolean selected;
+
+        NoteCellRenderer() {
+            setOpaque(true);
+            setFont(Main.BASE_FONT);
+            setBorder(BorderFactory.createEmptyBorder());
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends Note> list, Note n, int index, boolean isSelected, boolean cellHasFocus) {
+            RowInfo r = cache.get(n);
+            long stamp = n.getLastModified();
+            if (r == null || r.stamp != stamp || r.stowed != n.isStowed() || r.swatch != n.getColorScheme()[0]) {
+                r = new RowInfo();
+                r.stamp = stamp;
+                r.stowed = n.isStowed();
+                String p = n.getPreview(PREVIEW_LENGTH).trim().replace('\n', ' ').replace('\t', ' ');
+                r.preview = p.isEmpty() ? locBundle.getString("UNTITLED") : p;
+                r.meta = dateFormat.format(new Date(stamp)) + "  ·  " + n.getTextLength() + " " + locBundle.getString("NOTEBOOK_CHARS") + (r.stowed ? "  ·  " + locBundle.getString("NOTEBOOK_IN_NOTEBOOK") : "");
+                r.swatch = n.getColorScheme()[0];
+                cache.put(n, r);
+            }
+            row = r;
+            selected = isSelected;
+            setBackground(isSelected ? SELECTION : list.getBackground());
+            return this;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            Graphics2D g2 = (Graphics2D) g;
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            int pad = (int) (8 * Main.SCALE), sw = (int) (14 * Main.SCALE);
+            int h = getHeight(), w = getWidth();
+            g2.setColor(row.swatch);
+            g2.fillRect(pad, (h - sw) / 2, sw, sw);
+            g2.setColor(LINE);
+            g2.drawRect(pad, (h - sw) / 2, sw, sw);
+            g2.drawLine(0, h - 1, w, h - 1);
+            int x = pad * 2 + sw;
+            g2.setFont(Main.BASE_FONT);
+            FontMetrics fm = g2.getFontMetrics();
+            g2.setColor(row.stowed && !selected ? STOWED_TEXT : TEXT);
+            g2.drawString(clip(row.preview, fm, w - x - pad), x, h / 2 - fm.getDescent());
+            g2.setFont(Main.SMALL_FONT);
+            fm = g2.getFontMetrics();
+            g2.setColor(META_TEXT);
+            g2.drawString(clip(row.meta, fm, w - x - pad), x, h / 2 + fm.getAscent());
+        }
+
+        private static String clip(String s, FontMetrics fm, int width) {
+            if (fm.stringWidth(s) <= width) {
+                return s;
+            }
+            int n = s.length();
+            while (n > 0 && fm.stringWidth(s.substring(0, n)) + fm.stringWidth("…") > width) {
+                n = n * 3 / 4;
+            }
+            return s.substring(0, n) + "…";
+        }
+    }
+}
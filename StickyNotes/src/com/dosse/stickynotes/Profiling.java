@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.util.Date;
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder events of NoteBot.
+ *
+ * The events are always there, but they cost next to nothing unless a
+ * recording is running: the JVM removes them when they're not enabled. A
+ * recording can be started from outside with jcmd or JMC, or with the -profile
+ * flag, which records with the "profile" settings plus these events into the
+ * storage folder until the app is closed. The file can be opened with JMC or
+ * "jfr print" and attached to bug reports.
+ */
+final class Profiling {
+
+    private static final String CATEGORY = "NoteBot";
+    private static final long MAX_RECORDING_SIZE = 64 << 20;
+
+    private Profiling() {
+    }
+
+    @Name("com.dosse.stickynotes.Save")
+    @Label("Save")
+    @Description("Notes written to the storage")
+    @Category({CATEGORY, "Storage"})
+    @StackTrace(false)
+    static final class Save extends Event {
+
+        @Label("Notes")
+        int notes;
+
+        @Label("Size")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("com.dosse.stickynotes.Load")
+    @Label("Load")
+    @Description("Attempt to load the notes from one storage file")
+    @Category({CATEGORY, "Storage"})
+    @StackTrace(false)
+    static final class Load extends Event {
+
+        @Label("File")
+        String file;
+
+        @Label("Size")
+        @DataAmount
+        long bytes;
+
+        @Label("Notes")
+        int notes;
+
+        @Label("Success")
+        boolean success;
+    }
+
+    @Name("com.dosse.stickynotes.NoteConstruction")
+    @Label("Note Construction")
+    @Description("Creation of the window and the components of a note")
+    @Category({CATEGORY, "Notes"})
+    @StackTrace(false)
+    static final class NoteConstruction extends Event {
+    }
+
+    @Name("com.dosse.stickynotes.ColorScheme")
+    @Label("Color Scheme")
+    @Description("Color scheme applied to a note")
+    @Category({CATEGORY, "Notes"})
+    @StackTrace(false)
+    static final class ColorScheme extends Event {
+
+        @Label("Text Length")
+        int textLength;
+    }
+
+    @Name("com.dosse.stickynotes.TextScale")
+    @Label("Text Scale")
+    @Description("Text of a note laid out again at a different scale")
+    @Category({CATEGORY, "Notes"})
+    @StackTrace(false)
+    static final class TextScale extends Event {
+
+        @Label("Scale")
+        float scale;
+
+        @Label("Text Length")
+        int textLength;
+    }
+
+    @Name("com.dosse.stickynotes.PopupMenu")
+    @Label("Popup Menu")
+    @Description("Popup menu prepared and shown")
+    @Category({CATEGORY, "UI"})
+    @StackTrace(false)
+    static final class PopupMenu extends Event {
+
+        @Label("Menu")
+        String menu;
+    }
+
+    @Name("com.dosse.stickynotes.EdtTask")
+    @Label("Long EDT Task")
+    @Description("Event dispatched on the EDT that took longer than the threshold")
+    @Category({CATEGORY, "UI"})
+    @Threshold("20 ms")
+    static final class EdtTask extends Event {
+
+        @Label("Event")
+        String event;
+
+        @Label("Source")
+        String source;
+    }
+
+    /**
+     * times every event dispatched on the EDT, only installed while profiling
+     * because it adds a little work to every event
+     */
+    private static final class TimedEventQueue extends EventQueue {
+
+        @Override
+        protected void dispatchEvent(AWTEvent e) {
+            EdtTask t = new EdtTask();
+            t.begin();
+            try {
+                super.dispatchEvent(e);
+            } finally {
+                t.end();
+                if (t.shouldCommit()) {
+                    t.event = e.getClass().getName() + " " + e.getID();
+                    Object s = e.getSource();
+                    t.source = s == null ? null : s.getClass().getName();
+                    t.commit();
+                }
+            }
+        }
+    }
+
+    /**
+     * starts recording into the storage folder until the app is closed
+     */
+    static void startRecording() {
+        try {
+            Recording r = new Recording(Configuration.getConfiguration("profile"));
+            r.setName("NoteBot");
+            r.enable(Save.class).withoutThreshold();
+            r.enable(Load.class).withoutThreshold();
+            r.enable(NoteConstruction.class).withoutThreshold();
+            r.enable(ColorScheme.class).withoutThreshold();
+            r.enable(TextScale.class).withoutThreshold();
+            r.enable(PopupMenu.class).withoutThreshold();
+            r.enable(EdtTask.class).withThreshold(Duration.ofMillis(20));
+            r.setMaxSize(MAX_RECORDING_SIZE); //oldest data is dropped after this
+            r.setToDisk(true);
+            r.setDestination(new File(Main.getStorageDir(), "notebot-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".jfr").toPath()); //written when the recording stops, JFR stops it when the app is closed
+            r.start();
+            Toolkit.getDefaultToolkit().getSystemEventQueue().push(new TimedEventQueue());
+        } catch (Throwable t) {
+            System.err.println("Can't start profiling: " + t);
+        }
+    }
+}
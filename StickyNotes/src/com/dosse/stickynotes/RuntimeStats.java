@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import javax.management.ObjectName;
+import javax.swing.SwingUtilities;
+
+/**
+ * Exposes runtime metrics of NoteBot as a platform MBean, so that a running
+ * instance can be inspected and tuned with jconsole or any JMX client.
+ *
+ * The save counters are updated by Main with the save lock (or the lock of
+ * the pending save) held, the other metrics are computed when they're read.
+ * Lock waits on the EDT come from the thread contention monitoring of the
+ * JVM, which is enabled when the bean is registered. The stall metrics come
+ * from EdtWatchdog, and are 0 when it's not running.
+ */
+final class RuntimeStats implements RuntimeStatsMXBean {
+
+    private static final String OBJECT_NAME = "com.dosse.stickynotes:type=NoteBot";
+
+    private static volatile long lastSaveNanos = 0, lastSaveBytes = 0;
+    private static volatile long savesPerformed = 0, savesSkipped = 0, savesCoalesced = 0;
+    private static volatile long saveLockWaits = 0, saveLockWaitNanos = 0;
+    private static volatile Thread edt = null;
+
+    private RuntimeStats() {
+    }
+
+    /**
+     * registers the bean with the platform MBean server. Errors are ignored,
+     * the app works the same without it.
+     */
+    static void register() {
+        try {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if (threads.isThreadContentionMonitoringSupported()) {
+                threads.setThreadContentionMonitoringEnabled(true);
+            }
+            SwingUtilities.invokeLater(() -> edt = Thread.currentThread());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new RuntimeStats(), new ObjectName(OBJECT_NAME));
+        } catch (Throwable t) {
+            System.err.println("Can't register runtime stats: " + t);
+        }
+    }
+
+    /**
+     * called after the notes were written to disk
+     *
+     * @param nanos duration of the save
+     * @param bytes size of the storage
+     */
+    static void saveDone(long nanos, long bytes) {
+        lastSaveNanos = nanos;
+        lastSaveBytes = bytes;
+        savesPerformed++;
+    }
+
+    /**
+     * called when a save didn't write anything because the notes hadn't
+     * changed
+     */
+    static void saveSkipped() {
+        savesSkipped++;
+    }
+
+    /**
+     * called when a save request replaced one that was still waiting
+     */
+    static void saveCoalesced() {
+        savesCoalesced++;
+    }
+
+    /**
+     * called with the save lock held, when a thread had to wait for another
+     * save to finish
+     *
+     * @param nanos time spent waiting
+     */
+    static void saveLockWaited(long nanos) {
+        saveLockWaits++;
+        saveLockWaitNanos += nanos;
+    }
+
+    @Override
+    public int getNoteCount() {
+        return Main.getNotes().size();
+    }
+
+    @Override
+    public int getHibernatedNoteCount() {
+        int n = 0;
+        for (Note note : Main.getNotes()) {
+            if (note.isHibernated()) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public long getTotalCharacters() {
+        long n = 0;
+        for (Note note : Main.getNotes()) {
+            n += note.getTextLength();
+        }
+        return n;
+    }
+
+    @Override
+    public double getLastSaveMillis() {
+        return lastSaveNanos / 1000000.0;
+    }
+
+    @Override
+    public long getLastSaveBytes() {
+        return lastSaveBytes;
+    }
+
+    @Override
+    public long getSavesPerformed() {
+        return savesPerformed;
+    }
+
+    @Override
+    public long getSavesSkipped() {
+        return savesSkipped;
+    }
+
+    @Override
+    public long getSavesCoalesced() {
+        return savesCoalesced;
+    }
+
+    @Override
+    public long getSaveLockWaits() {
+        return saveLockWaits;
+    }
+
+    @Override
+    public long getSaveLockWaitMillis() {
+        return saveLockWaitNanos / 1000000;
+    }
+
+    @Override
+    public String[] getBackgroundTasks() {
+        return Background.getTaskStats();
+    }
+
+    @Override
+    public long getBackgroundFailures() {
+        return Background.getFailures();
+    }
+
+    @Override
+    public boolean isBackgroundPaused() {
+        return Background.isPaused();
+    }
+
+    private static ThreadInfo edtInfo() {
+        Thread t = edt;
+        return t == null ? null : ManagementFactory.getThreadMXBean().getThreadInfo(t.threadId());
+    }
+
+    @Override
+    public long getEdtBlockedCount() {
+        ThreadInfo i = edtInfo();
+        return i == null ? 0 : i.getBlockedCount();
+    }
+
+    @Override
+    public long getEdtBlockedMillis() {
+        ThreadInfo i = edtInfo();
+        return i == null ? 0 : Math.max(0, i.getBlockedTime()); //-1 if contention monitoring is not available
+    }
+
+    @Override
+    public long getHeapUsedPerNote() {
+        long used = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        return used / Math.max(1, Main.getNotes().size());
+    }
+
+    @Override
+    public long getEdtStallCount() {
+        return EdtWatchdog.getStallCount();
+    }
+
+    @Override
+    public long getLongestEdtStallMillis() {
+        return EdtWatchdog.getLongestStallMs();
+    }
+
+    @Override
+    public boolean isWatchdogRunning() {
+        return EdtWatchdog.isRunning();
+    }
+
+    @Override
+    public void flushNow() {
+        Main.flushSaves();
+    }
+
+    @Override
+    public void compactStore() {
+        Main.flushSaves(true);
+    }
+
+    @Override
+    public void hibernateIdleNotes() {
+        Main.hibernateIdleNotes();
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+/**
+ * Runtime metrics and operations of NoteBot, as seen in jconsole under
+ * com.dosse.stickynotes:type=NoteBot. JMX needs this interface to be public.
+ */
+public interface RuntimeStatsMXBean {
+
+    /**
+     * @return number of notes, on the desktop and in the notebook
+     */
+    int getNoteCount();
+
+    /**
+     * @return number of hibernated notes (no window, compressed text)
+     */
+    int getHibernatedNoteCount();
+
+    /**
+     * @return total length of the text of all the notes, in characters
+     */
+    long getTotalCharacters();
+
+    /**
+     * @return duration of the last save that was written to disk, in
+     * milliseconds
+     */
+    double getLastSaveMillis();
+
+    /**
+     * @return size of the storage written by the last save, in bytes
+     */
+    long getLastSaveBytes();
+
+    /**
+     * @return number of saves written to disk
+     */
+    long getSavesPerformed();
+
+    /**
+     * @return number of saves that didn't write anything because the notes
+     * hadn't changed
+     */
+    long getSavesSkipped();
+
+    /**
+     * @return number of save requests merged with a later one by the debounce
+     */
+    long getSavesCoalesced();
+
+    /**
+     * @return number of times a save had to wait for another one to finish,
+     * for example when a note is closed during an autosave. The list of notes
+     * itself is never locked, see NoteRegistry.
+     */
+    long getSaveLockWaits();
+
+    /**
+     * @return total time spent waiting for another save to finish, in
+     * milliseconds
+     */
+    long getSaveLockWaitMillis();
+
+    /**
+     * @return one line for each task of the background thread, with runs,
+     * failures, average and max duration
+     */
+    String[] getBackgroundTasks();
+
+    /**
+     * @return number of background task runs that failed, the errors are on
+     * stderr
+     */
+    long getBackgroundFailures();
+
+    /**
+     * @return true if the periodic work (autosave, idle trimming) is paused
+     * because nothing changed for a while
+     */
+    boolean isBackgroundPaused();
+
+    /**
+     * @return number of times the EDT had to wait for a monitor held by
+     * another thread
+     */
+    long getEdtBlockedCount();
+
+    /**
+     * @return total time the EDT spent waiting for locks held by other
+     * threads, in milliseconds
+     */
+    long getEdtBlockedMillis();
+
+    /**
+     * @return used heap divided by the number of notes, in bytes
+     */
+    long getHeapUsedPerNote();
+
+    /**
+     * @return number of EDT stalls detected by the watchdog, 0 if it's not
+     * running
+     */
+    long getEdtStallCount();
+
+    /**
+     * @return longest EDT stall detected by the watchdog, in milliseconds
+     */
+    long getLongestEdtStallMillis();
+
+    /**
+     * @return true if the EDT watchdog is running (-watchdog flag)
+     */
+    boolean isWatchdogRunning();
+
+    /**
+     * saves now, if anything changed
+     */
+    void flushNow();
+
+    /**
+     * rewrites the storage from scratch, even if nothing changed
+     */
+    void compactStore();
+
+    /**
+     * hibernates the notes that can't be seen
+     */
+    void hibernateIdleNotes();
+}
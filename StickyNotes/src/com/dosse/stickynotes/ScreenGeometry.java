@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+import java.awt.Rectangle;
+import java.awt.Window;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Supplier;
+import javax.swing.SwingUtilities;
+
+/**
+ * Caches the bounds of the screens, so that keeping the notes on screen
+ * doesn't enumerate the graphics devices every time a note moves.
+ *
+ * The cached layout is replaced by refresh(), which queries the screens
+ * again and tells whether anything changed. There's no public event for
+ * display changes. Usually java gives every window a new
+ * GraphicsConfiguration when one happens, so watched windows trigger a
+ * refresh. That's not guaranteed for every change on every toolkit (a new
+ * resolution on the same device, a monitor plugged in), so the screens are
+ * also checked when a watched window is activated and when a note starts
+ * being dragged or resized, which costs nothing while the app is left alone.
+ * The listeners are called only if the layout actually changed.
+ */
+final class ScreenGeometry {
+
+    private static Supplier<Rectangle[]> source = ScreenGeometry::queryScreens;
+    private static volatile Layout current = null;
+    private static final ArrayList<Runnable> listeners = new ArrayList<>(); //called on the EDT when the layout changes
+    private static boolean checkPending = false;
+
+    private ScreenGeometry() {
+    }
+
+    /**
+     * an immutable snapshot of the screen layout
+     */
+    static final class Layout {
+
+        private final Rectangle[] screens;
+        private final int width, height; //extended screen resolution: right and bottom edge of the rightmost and lowest screens
+        private final String fingerprint; //identifies this arrangement of screens regardless of the order of the devices
+
+        Layout(Rectangle[] screens) {
+            this.screens = new Rectangle[screens.length];
+            int w = 0, h = 0;
+            for (int i = 0; i < screens.length; i++) {
+                Rectangle r = new Rectangle(screens[i]);
+                this.screens[i] = r;
+                w = Math.max(w, r.x + r.width);
+                h = Math.max(h, r.y + r.height);
+            }
+            width = w;
+            height = h;
+            Rectangle[] sorted = this.screens.clone();
+            Arrays.sort(sorted, (Rectangle a, Rectangle b) -> a.x != b.x ? Integer.compare(a.x, b.x) : Integer.compare(a.y, b.y));
+            StringBuilder sb = new StringBuilder();
+            for (Rectangle r : sorted) {
+                sb.append(r.x).append(',').append(r.y).append(',').append(r.width).append('x').append(r.height).append(';');
+            }
+            fingerprint = sb.toString();
+        }
+
+        /**
+         * @return a string that identifies this arrangement of screens, like
+         * "0,0,1920x1080;1920,0,2560x1440;". Notes remember where they were
+         * for each arrangement.
+         */
+        String getFingerprint() {
+            return fingerprint;
+        }
+
+        /**
+         * @return extended screen resolution, also works with multiple
+         * screens
+         */
+        Dimension getExtent() {
+            return new Dimension(width, height);
+        }
+
+        /**
+         * @return the right edge of the rightmost screen
+         */
+        int getWidth() {
+            return width;
+        }
+
+        /**
+         * @return the bottom edge of the lowest screen
+         */
+        int getHeight() {
+            return height;
+        }
+
+        /**
+         * @return number of screens
+         */
+        int getScreenCount() {
+            return screens.length;
+        }
+
+        /**
+         * @param r rectangle, in screen coordinates
+         * @return true if r is at least partially visible on any screen
+         */
+        boolean isOnScreen(Rectangle r) {
+            for (Rectangle s : screens) {
+                if (s.intersects(r)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Layout && fingerprint.equals(((Layout) o).fingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return fingerprint.hashCode();
+        }
+    }
+
+    /**
+     * @return the current screen layout, queried the first time it's needed
+     */
+    static Layout get() {
+        Layout l = current;
+        if (l == null) {
+            refresh();
+            l = current;
+        }
+        return l;
+    }
+
+    /**
+     * queries the screens again
+     *
+     * @return true if the layout is different from the cached one
+     */
+    static synchronized boolean refresh() {
+        Layout l = new Layout(source.get());
+        if (l.equals(current)) {
+            return false;
+        }
+        current = l;
+        return true;
+    }
+
+    /**
+     * adds a listener that is called on the EDT when the screen layout changes
+     *
+     * @param r listener
+     */
+    static void addChangeListener(Runnable r) {
+        synchronized (listeners) {
+            listeners.add(r);
+        }
+    }
+
+    /**
+     * checks the screens again whenever the graphics configuration of a
+     * window changes (the window was moved to another screen, or the display
+     * configuration changed) and when the window is activated
+     *
+     * @param c window
+     */
+    static void watch(Component c) {
+        c.addPropertyChangeListener("graphicsConfiguration", e -> scheduleCheck());
+        if (c instanceof Window) {
+            ((Window) c).addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowActivated(WindowEvent e) {
+                    scheduleCheck();
+                }
+            });
+        }
+    }
+
+    /**
+     * refreshes the layout soon on the EDT, and notifies the listeners if it
+     * changed. All the windows get a new configuration at once when the
+     * display changes, so checks are coalesced.
+     */
+    static void scheduleCheck() {
+        synchronized (listeners) {
+            if (checkPending) {
+                return;
+            }
+            checkPending = true;
+        }
+        SwingUtilities.invokeLater(() -> {
+            synchronized (listeners) {
+                checkPending = false;
+            }
+            if (refresh()) {
+                Runnable[] l;
+                synchronized (listeners) {
+                    l = listeners.toArray(new Runnable[0]);
+                }
+                for (Runnable r : l) {
+                    r.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * replaces the source of the screen bounds, for benchmarks that need to
+     * simulate screens that aren't there
+     *
+     * @param s supplier of the bounds of each screen
+     */
+    static synchronized void setSource(Supplier<Rectangle[]> s) {
+        source = s;
+        current = null;
+    }
+
+    private static Rectangle[] queryScreens() {
+        try {
+            GraphicsDevice[] devices = GraphicsEnvironment.getLocalGraphicsEnvironment().getScreenDevices();
+            Rectangle[] r = new Rectangle[devices.length];
+            for (int i = 0; i < devices.length; i++) {
+                r[i] = devices[i].getDefaultConfiguration().getBounds();
+            }
+            return r;
+        } catch (Throwable t) { //headless
+            return new Rectangle[0];
+        }
+    }
+}
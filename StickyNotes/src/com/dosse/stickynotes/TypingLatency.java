@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2025 Modern UI Edition Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dosse.stickynotes;
+
+import java.awt.event.KeyEvent;
+import java.util.Locale;
+
+/**
+ * Measures the time from a keystroke entering the text pane of a note to the
+ * end of the next paint of that text pane.
+ *
+ * Times are collected in one histogram for each note size bucket (less than
+ * 1K characters, less than 10K, and so on), so it's easy to see at what size
+ * typing gets slow. The histograms have 16 buckets per power of 2, starting
+ * at 1 microsecond, so percentiles are within about 6% of the real value and
+ * recording a keystroke is just an increment. The exact maximum is also kept.
+ *
+ * Only used on the EDT.
+ */
+final class TypingLatency {
+
+    private static final int[] SIZE_LIMITS = {1000, 10000, 100000, 1000000}; //upper bounds of the note size buckets, in characters
+    private static final String[] SIZE_NAMES = {"< 1K", "1K - 10K", "10K - 100K", "100K - 1M", "> 1M"};
+    private static final int SUB_BUCKETS = 16, MAX_EXPONENT = 26; //up to about a minute
+    private static final int BUCKETS = (MAX_EXPONENT - 3) * SUB_BUCKETS;
+
+    private static final int[][] histograms = new int[SIZE_NAMES.length][BUCKETS];
+    private static final long[] counts = new long[SIZE_NAMES.length];
+    private static final long[] maxNanos = new long[SIZE_NAMES.length];
+
+    private TypingLatency() {
+    }
+
+    /**
+     * @param e key event
+     * @return true if the event is a keystroke that may change the text or
+     * move the caret. Shortcuts are not counted. The text pane records the
+     * keystroke only if something actually changed, otherwise nothing would
+     * be painted until the caret blinks (function keys, backspace at the
+     * start of the text, arrows at the edges...).
+     */
+    static boolean isKeystroke(KeyEvent e) {
+        if (e.isControlDown() || e.isMetaDown() || e.isAltDown()) {
+            return false;
+        }
+        return e.getID() == KeyEvent.KEY_TYPED || e.getID() == KeyEvent.KEY_PRESSED; //characters are inserted on typed, backspace, enter and arrows act on pressed
+    }
+
+    /**
+     * records the latency of a keystroke
+     *
+     * @param noteLength length of the text of the note, in characters
+     * @param nanos time from the keystroke to the end of the paint
+     */
+    static void record(int noteLength, long nanos) {
+        int s = 0;
+        while (s < SIZE_LIMITS.length && noteLength >= SIZE_LIMITS[s]) {
+            s++;
+        }
+        histograms[s][bucketOf(nanos / 1000)]++;
+        counts[s]++;
+        maxNanos[s] = Math.max(maxNanos[s], nanos);
+    }
+
+    /**
+     * values up to 31 have a bucket each, then each power of 2 is split in 16
+     * buckets
+     */
+    private static int bucketOf(long micros) {
+        if (micros < 2 * SUB_BUCKETS) {
+            return (int) Math.max(0, micros);
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - 4;
+        int b = shift * SUB_BUCKETS + (int) (micros >>> shift);
+        return Math.min(b, BUCKETS - 1);
+    }
+
+    /**
+     * @return the highest value in a bucket, in microseconds
+     */
+    private static long valueOf(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long mantissa = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    /**
+     * @return the given percentile of a size bucket, in microseconds
+     */
+    private static long percentile(int size, double p) {
+        long target = (long) Math.ceil(counts[size] * p), seen = 0;
+        int[] h = histograms[size];
+        for (int i = 0; i < h.length; i++) {
+            seen += h[i];
+            if (seen >= Math.max(1, target)) {
+                return valueOf(i);
+            }
+        }
+        return valueOf(h.length - 1);
+    }
+
+    /**
+     * @return one row for each size bucket with samples: note size,
+     * keystrokes, p50, p99 and max, with times in milliseconds
+     */
+    static String[][] getRows() {
+        int n = 0;
+        for (long c : counts) {
+            if (c > 0) {
+                n++;
+            }
+        }
+        String[][] rows = new String[n][];
+        for (int s = 0, r = 0; s < counts.length; s++) {
+            if (counts[s] > 0) {
+                rows[r++] = new String[]{SIZE_NAMES[s], Long.toString(counts[s]), ms(percentile(s, 0.5) * 1000), ms(percentile(s, 0.99) * 1000), ms(maxNanos[s])};
+            }
+        }
+        return rows;
+    }
+
+    private static String ms(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1000000.0);
+    }
+
+    /**
+     * @return a plain text report, with one line for each size bucket
+     */
+    static String report() {
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT, "%-12s%12s%10s%10s%10s%n", "chars", "keystrokes", "p50 ms", "p99 ms", "max ms"));
+        for (String[] r : getRows()) {
+            sb.append(String.format(Locale.ROOT, "%-12s%12s%10s%10s%10s%n", (Object[]) r));
+        }
+        return sb.toString();
+    }
+}